@@ -1,15 +1,18 @@
 package com.example.identitymanagementservice;
 
+import com.example.identitymanagementservice.common.config.AuthorizationProperties;
 import com.example.identitymanagementservice.common.config.CorsProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableFeignClients(basePackages = "com.example.IdentityManagementService.client")
 @EnableAspectJAutoProxy
-@EnableConfigurationProperties(CorsProperties.class)
+@EnableScheduling
+@EnableConfigurationProperties({CorsProperties.class, AuthorizationProperties.class})
 @SpringBootApplication(scanBasePackages = {"com.example.identitymanagementservice",
 })
 public class IdentityManagementServiceApplication {
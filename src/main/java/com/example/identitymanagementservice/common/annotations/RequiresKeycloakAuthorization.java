@@ -1,5 +1,7 @@
 package com.example.identitymanagementservice.common.annotations;
 
+import com.example.identitymanagementservice.enums.AuthorizationFallbackPolicy;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -10,4 +12,5 @@ import java.lang.annotation.Target;
 public @interface RequiresKeycloakAuthorization {
     String resource();
     String scope();
+    AuthorizationFallbackPolicy whenKeycloakUnavailable() default AuthorizationFallbackPolicy.FAIL_CLOSED;
 }
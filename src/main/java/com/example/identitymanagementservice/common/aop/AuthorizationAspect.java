@@ -41,7 +41,7 @@ public class AuthorizationAspect {
 
 
     //Matches any method that is annotated with the @RequiresKeycloakAuthorization
-    @Pointcut("@annotation(com.example.common.annotations.RequiresKeycloakAuthorization)")
+    @Pointcut("@annotation(com.example.identitymanagementservice.common.annotations.RequiresKeycloakAuthorization)")
     public void keycloakProtectedMethods() {}
 
 
@@ -84,7 +84,7 @@ public class AuthorizationAspect {
         String token = authHeader.substring(7);
 
 
-        boolean authorized = enforcer.isAuthorized(token, resource, scope);
+        boolean authorized = enforcer.isAuthorized(token, resource, scope, annotation.whenKeycloakUnavailable());
         if (!authorized) {
             throw new SecurityException(UNAUTHORIZED_ACCESS);
         }
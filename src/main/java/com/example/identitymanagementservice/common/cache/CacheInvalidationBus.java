@@ -0,0 +1,281 @@
+package com.example.identitymanagementservice.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cross-instance cache invalidation over PostgreSQL LISTEN/NOTIFY. publish(...) issues pg_notify on the caller's
+ * connection, so inside a transaction Postgres delivers it only once the write commits (and never on rollback).
+ * Every instance keeps one connection LISTENing on a background thread and hands the keys to the subscribers of
+ * that cache; its own notifications are skipped since the writer already evicted locally. Delivery is at most once:
+ * after the listener reconnects, subscribers are told to resync because notifications may have been missed.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements SmartLifecycle, MeterBinder {
+
+    static final String CHANNEL = "ims_cache_invalidation";
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more; leave room for the envelope
+    static final int MAX_KEY_BYTES = 7000;
+
+    private static final String METRIC_PREFIX = "cache.invalidation.";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final Duration reconnectDelay;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private volatile Timer lag;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${app.cache-invalidation.enabled:true}") boolean enabled,
+                                @Value("${app.cache-invalidation.poll-interval:250ms}") Duration pollInterval,
+                                @Value("${app.cache-invalidation.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    /**
+     * Registers the handlers for a cache: onKeys gets the keys another instance invalidated, onResync runs when
+     * notifications may have been lost and everything derived from the database should be dropped or re-read.
+     * Handlers run on the listener thread, so they should be quick.
+     */
+    public void subscribe(String cache, Consumer<Collection<String>> onKeys, Runnable onResync) {
+        subscribers.computeIfAbsent(cache, c -> new CopyOnWriteArrayList<>()).add(new Subscriber(onKeys, onResync));
+    }
+
+    /**
+     * Tells the other instances to drop the given keys of a cache. Null keys are ignored. Call it in the writing
+     * transaction, if there is one, so the notification goes out with the commit.
+     */
+    public void publish(String cache, Collection<String> keys) {
+        if (!enabled || keys == null) {
+            return;
+        }
+        List<String> batch = new ArrayList<>();
+        int batchBytes = 0;
+        for (String key : keys) {
+            if (key == null) {
+                continue;
+            }
+            // Quotes and comma around every key; escaping only matters for exotic keys and is covered by the slack
+            int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 3;
+            if (keyBytes > MAX_KEY_BYTES) {
+                // Can't be carried at all: have the other instances drop the whole cache instead
+                send(new Notification(nodeId, cache, null, System.currentTimeMillis()));
+                return;
+            }
+            if (batchBytes + keyBytes > MAX_KEY_BYTES) {
+                send(new Notification(nodeId, cache, batch, System.currentTimeMillis()));
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(key);
+            batchBytes += keyBytes;
+        }
+        if (!batch.isEmpty()) {
+            send(new Notification(nodeId, cache, batch, System.currentTimeMillis()));
+        }
+    }
+
+    private void send(Notification notification) {
+        try {
+            jdbcTemplate.queryForList("select pg_notify(?, ?)", CHANNEL, objectMapper.writeValueAsString(notification));
+            published.incrementAndGet();
+        } catch (JsonProcessingException | DataAccessException e) {
+            // Other instances fall back to their TTL / scheduled refresh for these keys
+            log.warn("Could not publish invalidation for cache {}: {}", notification.cache(), e.getMessage());
+        }
+    }
+
+    // Handles one payload received from the channel
+    void dispatch(String payload) {
+        Notification notification;
+        try {
+            notification = objectMapper.readValue(payload, Notification.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (nodeId.equals(notification.origin())) {
+            return;
+        }
+        received.incrementAndGet();
+        Timer timer = lag;
+        if (timer != null) {
+            // Includes clock skew between instances
+            timer.record(Math.max(0, System.currentTimeMillis() - notification.sentAt()), TimeUnit.MILLISECONDS);
+        }
+        for (Subscriber subscriber : subscribers.getOrDefault(notification.cache(), List.of())) {
+            try {
+                if (notification.keys() == null) {
+                    subscriber.onResync().run();
+                } else {
+                    subscriber.onKeys().accept(notification.keys());
+                }
+            } catch (Exception e) {
+                log.warn("Cache invalidation handler for {} failed: {}", notification.cache(), e.getMessage());
+            }
+        }
+    }
+
+    // Notifications sent while we weren't listening are gone; every subscriber starts over
+    void resync() {
+        resyncs.incrementAndGet();
+        subscribers.forEach((cache, list) -> list.forEach(subscriber -> {
+            try {
+                subscriber.onResync().run();
+            } catch (Exception e) {
+                log.warn("Cache resync for {} failed: {}", cache, e.getMessage());
+            }
+        }));
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = Objects.requireNonNull(jdbcTemplate.getDataSource()).getConnection()) {
+                // Pooled connections run in auto-commit, so LISTEN takes effect immediately
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                listening = true;
+                if (connectedBefore) {
+                    log.info("Cache invalidation listener reconnected, resyncing caches");
+                    resync();
+                }
+                connectedBefore = true;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener lost its connection: {}", e.getMessage());
+                }
+            } finally {
+                listening = false;
+            }
+            sleep(reconnectDelay);
+        }
+    }
+
+    private void sleep(Duration delay) {
+        if (!running) {
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = listener;
+        if (thread != null) {
+            try {
+                // The poll returns within pollInterval and the loop then sees running == false
+                thread.join(pollInterval.multipliedBy(4).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + "published", published, AtomicLong::get)
+                .description("Invalidation notifications sent to other instances")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "received", received, AtomicLong::get)
+                .description("Invalidation notifications received from other instances")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + "resyncs", resyncs, AtomicLong::get)
+                .description("Full cache resyncs after the listener reconnected")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "listening", this, bus -> bus.listening ? 1 : 0)
+                .description("1 while the LISTEN connection is up")
+                .register(registry);
+        lag = Timer.builder(METRIC_PREFIX + "lag")
+                .description("Time from publish to delivery on this instance")
+                .register(registry);
+    }
+
+    // keys == null means "drop the whole cache"
+    record Notification(String origin, String cache, List<String> keys, long sentAt) {
+    }
+
+    private record Subscriber(Consumer<Collection<String>> onKeys, Runnable onResync) {
+    }
+}
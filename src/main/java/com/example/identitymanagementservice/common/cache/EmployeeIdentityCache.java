@@ -0,0 +1,121 @@
+package com.example.identitymanagementservice.common.cache;
+
+import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import com.example.identitymanagementservice.repository.EmployeeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of active employees' UserIdentityDto, keyed by employeeCode and by keycloakUserId.
+ * Misses aren't cached. Writers call evict(...) with both identifiers, which also reaches the other instances through
+ * the CacheInvalidationBus; the TTL only bounds staleness from writes that bypass this service. Returned DTOs are
+ * shared between callers and must not be modified.
+ */
+@Component
+public class EmployeeIdentityCache implements MeterBinder {
+
+    private static final String BY_EMPLOYEE_CODE = "employee-identities";
+    private static final String BY_KEYCLOAK_USER_ID = "employee-identities-by-keycloak-id";
+
+    private final EmployeeRepository employeeRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<String, UserIdentityDto> byEmployeeCode;
+    private final Cache<String, UserIdentityDto> byKeycloakUserId;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public EmployeeIdentityCache(EmployeeRepository employeeRepository,
+                                 CacheInvalidationBus invalidationBus,
+                                 @Value("${app.employee-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${app.employee-cache.ttl:10m}") Duration ttl) {
+        this.employeeRepository = employeeRepository;
+        this.invalidationBus = invalidationBus;
+        this.byEmployeeCode = newCache(maximumSize, ttl);
+        this.byKeycloakUserId = newCache(maximumSize, ttl);
+        // Remote notifications carry both identifiers as plain keys; codes and Keycloak ids never collide in practice
+        invalidationBus.subscribe(BY_EMPLOYEE_CODE, this::invalidateRemote, this::invalidateAll);
+    }
+
+    private static Cache<String, UserIdentityDto> newCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<UserIdentityDto> getByEmployeeCode(String employeeCode) {
+        // Loaded inside the cache's per-key compute, so a concurrent evict can't be overtaken by an older load
+        return Optional.ofNullable(byEmployeeCode.get(employeeCode,
+                code -> employeeRepository.findIdentityByEmployeeCode(code).orElse(null)));
+    }
+
+    public Optional<UserIdentityDto> getByKeycloakUserId(String keycloakUserId) {
+        return Optional.ofNullable(byKeycloakUserId.get(keycloakUserId,
+                id -> employeeRepository.findIdentityByKeycloakUserId(id).orElse(null)));
+    }
+
+    /**
+     * Drops the employee under both keys, now and again once the surrounding transaction commits, so a read that
+     * raced the write can't leave the pre-commit row cached. Other instances are notified with the commit. Either
+     * identifier may be null.
+     */
+    public void evict(String employeeCode, String keycloakUserId) {
+        invalidations.incrementAndGet();
+        invalidate(employeeCode, keycloakUserId);
+        invalidationBus.publish(BY_EMPLOYEE_CODE, Arrays.asList(employeeCode, keycloakUserId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(employeeCode, keycloakUserId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(String employeeCode, String keycloakUserId) {
+        if (employeeCode != null) {
+            byEmployeeCode.invalidate(employeeCode);
+        }
+        if (keycloakUserId != null) {
+            byKeycloakUserId.invalidate(keycloakUserId);
+        }
+    }
+
+    private void invalidateRemote(Collection<String> keys) {
+        invalidations.incrementAndGet();
+        byEmployeeCode.invalidateAll(keys);
+        byKeycloakUserId.invalidateAll(keys);
+    }
+
+    private void invalidateAll() {
+        byEmployeeCode.invalidateAll();
+        byKeycloakUserId.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // cache.gets{result=hit|miss} give the hit rate; cache.evictions counts size/TTL evictions
+        CaffeineCacheMetrics.monitor(registry, byEmployeeCode, BY_EMPLOYEE_CODE);
+        CaffeineCacheMetrics.monitor(registry, byKeycloakUserId, BY_KEYCLOAK_USER_ID);
+        // Explicit evictions from writes, which Caffeine doesn't count as evictions
+        FunctionCounter.builder("cache.invalidations", invalidations, AtomicLong::get)
+                .tag("cache", BY_EMPLOYEE_CODE)
+                .description("Entries dropped because the employee was written here or on another instance")
+                .register(registry);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.identitymanagementservice.common.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "keycloak.authorization")
+public class AuthorizationProperties {
+
+    private Mode mode = Mode.REMOTE;
+    private final Cache cache = new Cache();
+    private final Local local = new Local();
+    private final Http http = new Http();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public enum Mode {
+        // Every decision goes to Keycloak (subject to the decision cache)
+        REMOTE,
+        // Grant from the token claims / role mapping when possible, ask Keycloak only on a local miss
+        LOCAL_FIRST
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        // Upper bound for a cached decision; the token's exp claim always wins if it is earlier
+        private Duration ttl = Duration.ofMinutes(5);
+        // How long past its TTL a decision may still be served while Keycloak is unavailable
+        private Duration staleGracePeriod = Duration.ofMinutes(10);
+    }
+
+    @Getter
+    @Setter
+    public static class Local {
+        // Realm role -> permissions in "resource#scope" form that the role is known to grant
+        private Map<String, List<String>> rolePermissions = new HashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(3);
+        // How long a request may wait for a free pooled connection before failing
+        private Duration poolAcquireTimeout = Duration.ofSeconds(1);
+        private int maxConnections = 100;
+        private int maxConnectionsPerRoute = 50;
+        private Duration idleEvictionTimeout = Duration.ofSeconds(30);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDuration = Duration.ofSeconds(2);
+        // Rolling window over which the error and slow-call rates are measured
+        private Duration slidingWindow = Duration.ofSeconds(30);
+        private int minimumNumberOfCalls = 10;
+        private Duration waitInOpenState = Duration.ofSeconds(15);
+        private int permittedCallsInHalfOpenState = 3;
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.identitymanagementservice.common.config;
 
+import com.example.identitymanagementservice.enums.AuthorizationFallbackPolicy;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,18 +13,25 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-
-
-
-
-
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.example.identitymanagementservice.common.constants.ErrorCode.SERVICE_UNAVAILABLE_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.KEYCLOAK_AUTHORIZATION_UNAVAILABLE;
 
 @Slf4j
 @Component
@@ -39,9 +50,93 @@ public class KeycloakAuthorizationEnforcer {
     @Value("${keycloak.credentials.secret}")
     private String clientSecret;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate keycloakRestTemplate;
+    private final UmaDecisionCache decisionCache;
+    private final LocalPolicyEvaluator localPolicyEvaluator;
+    private final CircuitBreaker keycloakAuthorizationCircuitBreaker;
+
+    // Leader call per token+resource+scope; concurrent identical checks wait on it instead of calling Keycloak
+    private final ConcurrentMap<String, CompletableFuture<Outcome>> inFlight = new ConcurrentHashMap<>();
 
     public boolean isAuthorized(String token, String resource, String scope) {
+        return isAuthorized(token, resource, scope, AuthorizationFallbackPolicy.FAIL_CLOSED);
+    }
+
+    public boolean isAuthorized(String token, String resource, String scope, AuthorizationFallbackPolicy fallbackPolicy) {
+        Jwt jwt = currentJwt(token);
+        if (localPolicyEvaluator.permits(jwt, resource, scope)) {
+            log.debug("UMA permission {}#{} granted locally from token claims", resource, scope);
+            return true;
+        }
+
+        String cacheKey = decisionCache.keyFor(jwt, resource, scope);
+
+        Boolean cached = decisionCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("UMA decision for {}#{} served from cache", resource, scope);
+            return cached;
+        }
+
+        try {
+            return requestDecisionOnce(jwt, cacheKey, token, resource, scope);
+        } catch (CallNotPermittedException | ResourceAccessException | HttpServerErrorException e) {
+            return whenKeycloakUnavailable(cacheKey, resource, scope, fallbackPolicy, e);
+        }
+    }
+
+    private boolean requestDecisionOnce(Jwt jwt, String cacheKey, String token, String resource, String scope) {
+        String flightKey = cacheKey != null ? cacheKey : token + "|" + resource + "#" + scope;
+        CompletableFuture<Outcome> call = new CompletableFuture<>();
+        CompletableFuture<Outcome> inFlightCall = inFlight.putIfAbsent(flightKey, call);
+        if (inFlightCall != null) {
+            // An identical check is already on its way to Keycloak - share its answer
+            log.debug("Joining in-flight UMA request for {}#{}", resource, scope);
+            return await(inFlightCall) == Outcome.GRANTED;
+        }
+
+        try {
+            Outcome outcome = keycloakAuthorizationCircuitBreaker.executeSupplier(
+                    () -> requestDecision(token, resource, scope));
+            if (outcome != Outcome.REJECTED) {
+                decisionCache.put(cacheKey, outcome == Outcome.GRANTED, jwt != null ? jwt.getExpiresAt() : null);
+            }
+            call.complete(outcome);
+            return outcome == Outcome.GRANTED;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, call);
+        }
+    }
+
+    private boolean whenKeycloakUnavailable(String cacheKey, String resource, String scope,
+                                            AuthorizationFallbackPolicy fallbackPolicy, RuntimeException cause) {
+        if (fallbackPolicy == AuthorizationFallbackPolicy.SERVE_STALE) {
+            Boolean stale = decisionCache.getStale(cacheKey);
+            if (stale != null) {
+                log.warn("Keycloak unavailable ({}), serving cached decision for {}#{}",
+                        cause.getClass().getSimpleName(), resource, scope);
+                return stale;
+            }
+        }
+
+        log.error("Keycloak unavailable ({}), failing closed for {}#{}", cause.getMessage(), resource, scope);
+        throw new TimesheetException(SERVICE_UNAVAILABLE_ERROR, KEYCLOAK_AUTHORIZATION_UNAVAILABLE, cause);
+    }
+
+    private static Outcome await(CompletableFuture<Outcome> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Outcome requestDecision(String token, String resource, String scope) {
         String url = String.format("%s/realms/%s/protocol/openid-connect/token",
                 keycloakBaseUrl, realm);
 
@@ -58,7 +153,7 @@ public class KeycloakAuthorizationEnforcer {
                 clientId, encodedPermission);
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
+            ResponseEntity<Map> response = keycloakRestTemplate.exchange(
                     url,
                     HttpMethod.POST,
                     new HttpEntity<>(body, headers),
@@ -68,20 +163,41 @@ public class KeycloakAuthorizationEnforcer {
             // Successful response means authorized
             if (response.getStatusCode() == HttpStatus.OK) {
                 log.debug("UMA Authorization successful for {}#{}", resource, scope);
-                return true;
+                return Outcome.GRANTED;
             }
 
             // Check for RPT (Requesting Party Token) in response
             if (response.getBody() != null && response.getBody().containsKey("access_token")) {
-                return true;
+                return Outcome.GRANTED;
             }
 
             log.warn("UMA Authorization failed for {}#{}: {}", resource, scope, response.getBody());
-            return false;
+            return Outcome.REJECTED;
 
+        } catch (HttpClientErrorException.Forbidden e) {
+            // Keycloak evaluated the policies and denied the permission - safe to remember
+            log.warn("UMA Authorization denied for {}#{}", resource, scope);
+            return Outcome.DENIED;
         } catch (HttpClientErrorException e) {
             log.error("UMA Authorization error: {}", e.getResponseBodyAsString());
-            return false;
+            return Outcome.REJECTED;
         }
     }
-}
\ No newline at end of file
+
+    // The resource server has already validated the bearer token, so reuse its parsed claims
+    private Jwt currentJwt(String token) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Jwt jwt
+                && jwt.getTokenValue().equals(token)) {
+            return jwt;
+        }
+        return null;
+    }
+
+    // REJECTED covers malformed/unauthenticated requests, which are never cached
+    private enum Outcome {
+        GRANTED,
+        DENIED,
+        REJECTED
+    }
+}
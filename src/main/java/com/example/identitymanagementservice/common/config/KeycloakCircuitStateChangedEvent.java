@@ -0,0 +1,14 @@
+package com.example.identitymanagementservice.common.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import java.time.Instant;
+
+/**
+ * Application event published whenever the Keycloak authorization circuit breaker changes state.
+ */
+public record KeycloakCircuitStateChangedEvent(String circuitBreakerName,
+                                               CircuitBreaker.State fromState,
+                                               CircuitBreaker.State toState,
+                                               Instant occurredAt) {
+}
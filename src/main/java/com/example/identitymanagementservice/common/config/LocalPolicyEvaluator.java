@@ -0,0 +1,82 @@
+package com.example.identitymanagementservice.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluates resource#scope permissions from an already validated JWT without calling Keycloak.
+ * Only ever grants: a miss means "ask Keycloak", never "deny".
+ */
+@Slf4j
+@Component
+public class LocalPolicyEvaluator {
+
+    private static final String AUTHORIZATION_CLAIM = "authorization";
+    private static final String REALM_ACCESS_CLAIM = "realm_access";
+
+    private final boolean enabled;
+
+    // permission ("resource#scope") -> realm roles granting it, inverted once at startup
+    private final Map<String, Set<String>> rolesByPermission = new HashMap<>();
+
+    public LocalPolicyEvaluator(AuthorizationProperties properties) {
+        this.enabled = properties.getMode() == AuthorizationProperties.Mode.LOCAL_FIRST;
+
+        properties.getLocal().getRolePermissions().forEach((role, permissions) -> {
+            for (String permission : permissions) {
+                rolesByPermission.computeIfAbsent(permission.trim(), p -> new HashSet<>()).add(role);
+            }
+        });
+        if (enabled) {
+            log.info("Local UMA evaluation enabled with {} mapped permission(s)", rolesByPermission.size());
+        }
+    }
+
+    public boolean permits(Jwt jwt, String resource, String scope) {
+        if (!enabled || jwt == null) {
+            return false;
+        }
+        return rptGrants(jwt, resource, scope) || roleMappingGrants(jwt, resource + "#" + scope);
+    }
+
+    // An RPT carries the evaluated permissions as authorization.permissions[{rsname, scopes}]
+    private boolean rptGrants(Jwt jwt, String resource, String scope) {
+        Object authorization = jwt.getClaim(AUTHORIZATION_CLAIM);
+        if (!(authorization instanceof Map<?, ?> authorizationClaim)
+                || !(authorizationClaim.get("permissions") instanceof Collection<?> permissions)) {
+            return false;
+        }
+
+        for (Object entry : permissions) {
+            if (entry instanceof Map<?, ?> permission
+                    && resource.equals(permission.get("rsname"))
+                    && permission.get("scopes") instanceof Collection<?> scopes
+                    && scopes.contains(scope)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean roleMappingGrants(Jwt jwt, String permission) {
+        Set<String> grantingRoles = rolesByPermission.get(permission);
+        if (grantingRoles == null) {
+            return false;
+        }
+
+        Object realmAccess = jwt.getClaim(REALM_ACCESS_CLAIM);
+        if (!(realmAccess instanceof Map<?, ?> realmAccessClaim)
+                || !(realmAccessClaim.get("roles") instanceof List<?> roles)) {
+            return false;
+        }
+        return roles.stream().anyMatch(grantingRoles::contains);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.identitymanagementservice.common.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Exposes pg_trgm's word-similarity operator to Criteria queries. It has to be rendered as the operator
+ * (not the equivalent function) for Postgres to use the trigram GIN indexes.
+ * Registered through META-INF/services.
+ */
+public class TrigramFunctionContributor implements FunctionContributor {
+
+    // trgm_word_match(column, term): true when term is similar to some word run in column
+    public static final String TRGM_WORD_MATCH = "trgm_word_match";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                TRGM_WORD_MATCH,
+                "(?1 %> ?2)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.identitymanagementservice.common.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of UMA decisions, keyed by token identity (jti, falling back to sub) and resource#scope.
+ * An entry is fresh for the configured TTL, kept a little longer as a stale fallback, and never outlives the token
+ * it was issued for. Fresh and stale decisions live in separate caches so the hit/miss stats of the fresh one
+ * only count decisions that were actually served without asking Keycloak.
+ */
+@Component
+public class UmaDecisionCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "uma-decisions";
+
+    private final AuthorizationProperties.Cache settings;
+    // Entries expire at freshUntil
+    private final Cache<String, Decision> cache;
+    // Same decisions, kept until expiresAt; only read while Keycloak is unavailable
+    private final Cache<String, Decision> staleCache;
+
+    public UmaDecisionCache(AuthorizationProperties properties) {
+        this.settings = properties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfter(new DecisionExpiry(Decision::freshUntil))
+                .recordStats()
+                .build();
+        this.staleCache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfter(new DecisionExpiry(Decision::expiresAt))
+                .build();
+    }
+
+    public String keyFor(Jwt jwt, String resource, String scope) {
+        if (!settings.isEnabled() || jwt == null) {
+            return null;
+        }
+        String tokenId = jwt.getId();
+        if (tokenId == null) {
+            if (jwt.getSubject() == null) {
+                return null;
+            }
+            tokenId = jwt.getSubject() + "@" + (jwt.getIssuedAt() != null ? jwt.getIssuedAt().getEpochSecond() : 0);
+        }
+        return tokenId + "|" + resource + "#" + scope;
+    }
+
+    public Boolean get(String key) {
+        if (key == null) {
+            return null;
+        }
+        Decision decision = cache.getIfPresent(key);
+        return decision != null ? decision.granted() : null;
+    }
+
+    /**
+     * Returns a decision past its TTL but still inside the stale grace period, for use while Keycloak is unavailable.
+     */
+    public Boolean getStale(String key) {
+        if (key == null) {
+            return null;
+        }
+        Decision decision = staleCache.getIfPresent(key);
+        return decision != null ? decision.granted() : null;
+    }
+
+    public void put(String key, boolean granted, Instant tokenExpiresAt) {
+        if (key == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant freshUntil = earliest(now.plus(settings.getTtl()), tokenExpiresAt);
+        Instant expiresAt = earliest(freshUntil.plus(settings.getStaleGracePeriod()), tokenExpiresAt);
+        if (expiresAt.isAfter(now)) {
+            Decision decision = new Decision(granted, freshUntil, expiresAt);
+            staleCache.put(key, decision);
+            if (freshUntil.isAfter(now)) {
+                cache.put(key, decision);
+            }
+        }
+    }
+
+    private static Instant earliest(Instant candidate, Instant tokenExpiresAt) {
+        return tokenExpiresAt != null && tokenExpiresAt.isBefore(candidate) ? tokenExpiresAt : candidate;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Publishes cache.gets{result=hit|miss}, cache.evictions and cache.size for the decision cache
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private record Decision(boolean granted, Instant freshUntil, Instant expiresAt) {
+    }
+
+    private static final class DecisionExpiry implements Expiry<String, Decision> {
+
+        private final Function<Decision, Instant> deadline;
+
+        DecisionExpiry(Function<Decision, Instant> deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Decision value, long currentTime) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Decision value, long currentTime, long currentDuration) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Decision value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remainingNanos(Decision value) {
+            return Math.max(0, Duration.between(Instant.now(), deadline.apply(value)).toNanos());
+        }
+    }
+}
@@ -11,11 +11,13 @@ public final class ErrorMessage {
     // === Keycloak Errors ===
     public static final String KEYCLOAK_USER_ALREADY_EXISTS = "Keycloak user already exists: ";
     public static final String KEYCLOAK_ADMIN_CONNECTION_FAILED = "Keycloak admin connection failed";
+    public static final String KEYCLOAK_AUTHORIZATION_UNAVAILABLE = "Authorization service is temporarily unavailable";
     public static final String USER_UPDATE_FAILED = "User update failed";
     public static final String PASSWORD_UPDATE_FAILED = "Password update failed";
 
     // === User & Role Errors ===
     public static final String USER_NOT_FOUND = "User not found";
+    public static final String BATCH_LOOKUP_EMPTY = "At least one employeeCode or keycloakUserId is required";
     public static final String ROLE_NOT_FOUND = "Role not found";
     public static final String ROLE_NOT_ASSIGNED = "Role not assigned";
     public static final String ROLE_ALREADY_ASSIGNED = "Role already assigned";
@@ -24,6 +26,7 @@ public final class ErrorMessage {
     public static final String EMPLOYEE_ALREADY_EXISTS = "Employee already exists with %s";
     public static final String EMPLOYEE_SAVE_FAILED = "Failed to save employee to database";
     public static final String EMPLOYEE_CREATION_FAILED_LOG = "Error creating employee";
+    public static final String WELCOME_EMAIL_QUEUE_FAILED = "Could not store the Keycloak user id or queue the welcome email";
 
     // === Reporting Manager Errors ===
     public static final String REPORTING_MANAGER_ASSIGN_FAILED = "Failed to assign reporting manager to employee";
@@ -31,6 +34,8 @@ public final class ErrorMessage {
     public static final String RM_NOT_ASSIGNED = "Reporting manager not assigned for employee: %s";
     public static final String RM_NOT_FOUND = "Reporting manager not found ";
     public static final String NO_MANAGER_ASSIGNED = "No manager assigned";
+    public static final String REPORTING_CYCLE = "Assigning %s as reporting manager of %s would create a reporting cycle";
+    public static final String INVALID_HIERARCHY_DEPTH = "maxDepth must be at least 1";
 
     // === Timesheet & Assignment Errors ===
     public static final String DAILY_TIMESHEET_NOT_FOUND =
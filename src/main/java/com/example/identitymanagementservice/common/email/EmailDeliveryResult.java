@@ -0,0 +1,15 @@
+package com.example.identitymanagementservice.common.email;
+
+/**
+ * Outcome of one message in a batch send; messageId is the provider's id when it returns one.
+ */
+public record EmailDeliveryResult(String to, boolean sent, String messageId, String error) {
+
+    public static EmailDeliveryResult sent(String to, String messageId) {
+        return new EmailDeliveryResult(to, true, messageId, null);
+    }
+
+    public static EmailDeliveryResult failed(String to, String error) {
+        return new EmailDeliveryResult(to, false, null, error);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.identitymanagementservice.common.email;
+
+import java.util.Map;
+
+/**
+ * One email in a batch send. Either carries rendered text, or a template name plus variables so providers that
+ * support stored templates can send all recipients of the same template together.
+ */
+public record EmailMessage(String to, String subject, String text, String templateName, Map<String, String> variables) {
+
+    public static EmailMessage plain(String to, String subject, String text) {
+        return new EmailMessage(to, subject, text, null, Map.of());
+    }
+
+    public static EmailMessage templated(String to, String subject, String templateName, Map<String, String> variables) {
+        return new EmailMessage(to, subject, null, templateName, variables);
+    }
+
+    public boolean isTemplated() {
+        return templateName != null;
+    }
+}
@@ -4,9 +4,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -19,24 +24,136 @@ public class EmailTemplateUtil {
     private static final String VAR_SUFFIX_2 = "}";
     private static final String LINE_SEPARATOR = "\n";
 
+    // Templates are read and parsed once per name; disable caching to pick up edits without a restart
+    private static final Map<String, CompiledTemplate> TEMPLATE_CACHE = new ConcurrentHashMap<>();
+    private static volatile boolean cacheEnabled = true;
+
+    private EmailTemplateUtil() {
+    }
+
     public static String loadTemplate(String templateName, Map<String, String> variables) {
         try {
-            ClassPathResource resource = new ClassPathResource(TEMPLATE_PATH_PREFIX + templateName);
-            String template;
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
-                template = reader.lines().collect(Collectors.joining(LINE_SEPARATOR));
-            }
-
-            // Support two types of placeholder styles {{var}} and ${var}
-            for (Map.Entry<String, String> entry : variables.entrySet()) {
-                template = template.replace(VAR_PREFIX_1 + entry.getKey() + VAR_SUFFIX_1, entry.getValue());
-                template = template.replace(VAR_PREFIX_2 + entry.getKey() + VAR_SUFFIX_2, entry.getValue());
-            }
-            return template;
+            return compiledTemplate(templateName).render(variables);
         } catch (Exception e) {
             log.error("Failed to load email template: {}", templateName, e);
             throw new RuntimeException("Error loading email template: " + templateName, e);
         }
     }
+
+    /**
+     * Returns the template text with every placeholder written as {{var}}, the syntax SES stored templates use.
+     */
+    public static String loadTemplateSource(String templateName) {
+        return compiledTemplate(templateName).toDoubleBraceSyntax();
+    }
+
+    public static void setCacheEnabled(boolean enabled) {
+        cacheEnabled = enabled;
+        if (!enabled) {
+            TEMPLATE_CACHE.clear();
+        }
+    }
+
+    public static void clearCache() {
+        TEMPLATE_CACHE.clear();
+    }
+
+    static CompiledTemplate compiledTemplate(String templateName) {
+        if (!cacheEnabled) {
+            return CompiledTemplate.parse(readTemplate(templateName));
+        }
+        return TEMPLATE_CACHE.computeIfAbsent(templateName, name -> CompiledTemplate.parse(readTemplate(name)));
+    }
+
+    private static String readTemplate(String templateName) {
+        ClassPathResource resource = new ClassPathResource(TEMPLATE_PATH_PREFIX + templateName);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining(LINE_SEPARATOR));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A template split into literal text and placeholders, rendered in a single pass. Supports two placeholder
+     * styles, {{var}} and ${var}; a placeholder with no value is left as written.
+     */
+    static final class CompiledTemplate {
+
+        // literals[i] precedes placeholder i; the final literal follows the last placeholder
+        private final String[] literals;
+        private final String[] names;
+        private final String[] placeholders;
+        private final int literalLength;
+
+        private CompiledTemplate(List<String> literals, List<String> names, List<String> placeholders) {
+            this.literals = literals.toArray(String[]::new);
+            this.names = names.toArray(String[]::new);
+            this.placeholders = placeholders.toArray(String[]::new);
+            this.literalLength = literals.stream().mapToInt(String::length).sum();
+        }
+
+        static CompiledTemplate parse(String template) {
+            List<String> literals = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+
+            int literalStart = 0;
+            int i = 0;
+            while (i < template.length()) {
+                String prefix;
+                String suffix;
+                if (template.startsWith(VAR_PREFIX_1, i)) {
+                    prefix = VAR_PREFIX_1;
+                    suffix = VAR_SUFFIX_1;
+                } else if (template.startsWith(VAR_PREFIX_2, i)) {
+                    prefix = VAR_PREFIX_2;
+                    suffix = VAR_SUFFIX_2;
+                } else {
+                    i++;
+                    continue;
+                }
+
+                int end = template.indexOf(suffix, i + prefix.length());
+                if (end < 0) {
+                    i++;
+                    continue;
+                }
+                literals.add(template.substring(literalStart, i));
+                names.add(template.substring(i + prefix.length(), end));
+                placeholders.add(template.substring(i, end + suffix.length()));
+                i = end + suffix.length();
+                literalStart = i;
+            }
+            literals.add(template.substring(literalStart));
+            return new CompiledTemplate(literals, names, placeholders);
+        }
+
+        String render(Map<String, String> variables) {
+            int valueLength = 0;
+            for (String name : names) {
+                String value = variables.get(name);
+                valueLength += value != null ? value.length() : 0;
+            }
+
+            StringBuilder out = new StringBuilder(literalLength + valueLength + 16);
+            for (int i = 0; i < names.length; i++) {
+                out.append(literals[i]);
+                String value = variables.get(names[i]);
+                out.append(value != null ? value : placeholders[i]);
+            }
+            out.append(literals[names.length]);
+            return out.toString();
+        }
+
+        String toDoubleBraceSyntax() {
+            StringBuilder out = new StringBuilder(literalLength + names.length * 16);
+            for (int i = 0; i < names.length; i++) {
+                out.append(literals[i]).append(VAR_PREFIX_1).append(names[i]).append(VAR_SUFFIX_1);
+            }
+            out.append(literals[names.length]);
+            return out.toString();
+        }
+    }
 }
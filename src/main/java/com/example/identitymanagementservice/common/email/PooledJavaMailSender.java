@@ -0,0 +1,194 @@
+package com.example.identitymanagementservice.common.email;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaMailSenderImpl that keeps up to pool-size SMTP connections open between sends instead of connecting for
+ * every call. A send(...) of several messages goes out over one connection. A connection is retired after
+ * max-messages-per-connection messages or max-idle without use, and a message whose connection drops mid-send is
+ * retried once on a fresh connection.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final Semaphore permits;
+    // Most recently used first, so idle connections at the tail age out
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+    private final int maxMessagesPerConnection;
+    private final long maxIdleNanos;
+    private final Duration acquireTimeout;
+
+    public PooledJavaMailSender(int poolSize, int maxMessagesPerConnection, Duration maxIdle, Duration acquireTimeout) {
+        this.permits = new Semaphore(poolSize, true);
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        acquirePermit(mimeMessages, originalMessages);
+        PooledTransport connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                boolean retried = false;
+                while (true) {
+                    try {
+                        connection = ensureUsable(connection);
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (MessagingException ex) {
+                        // Effectively, all remaining messages failed
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        throw new MailSendException("Mail server connection failed", ex, failedMessages);
+                    }
+
+                    try {
+                        send(connection, mimeMessages[i]);
+                        break;
+                    } catch (Exception ex) {
+                        if (!retried && !connection.transport.isConnected()) {
+                            log.debug("SMTP connection dropped while sending, retrying on a new connection", ex);
+                            close(connection);
+                            connection = null;
+                            retried = true;
+                            continue;
+                        }
+                        // Rejected message (bad recipient etc.); the connection itself is still fine
+                        failedMessages.put(original, ex);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            release(connection);
+            permits.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    private void acquirePermit(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) {
+        Exception failure;
+        try {
+            if (permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            failure = new MessagingException("Timed out waiting for a pooled SMTP connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+
+        // Nothing was sent; report every message as failed
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        for (int i = 0; i < mimeMessages.length; i++) {
+            failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], failure);
+        }
+        throw new MailSendException("No pooled SMTP connection available", failure, failedMessages);
+    }
+
+    private PooledTransport ensureUsable(@Nullable PooledTransport connection) throws MessagingException {
+        if (connection != null && connection.sent < maxMessagesPerConnection) {
+            return connection;
+        }
+        if (connection != null) {
+            close(connection);
+        }
+        return borrow();
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            // isConnected() issues a NOOP, so connections the server has dropped are caught here
+            if (System.nanoTime() - candidate.lastUsedNanos > maxIdleNanos || !candidate.transport.isConnected()) {
+                close(candidate);
+                continue;
+            }
+            return candidate;
+        }
+        return new PooledTransport(connectTransport());
+    }
+
+    private void send(PooledTransport connection, MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // Preserve explicitly specified message id...
+            mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+        }
+        Address[] addresses = mimeMessage.getAllRecipients();
+        connection.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+        connection.sent++;
+    }
+
+    private void release(@Nullable PooledTransport connection) {
+        if (connection == null) {
+            return;
+        }
+        if (connection.sent >= maxMessagesPerConnection) {
+            close(connection);
+            return;
+        }
+        connection.lastUsedNanos = System.nanoTime();
+        idle.offerFirst(connection);
+    }
+
+    private static void close(PooledTransport connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException ex) {
+            log.debug("Failed to close SMTP connection", ex);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledTransport connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private int sent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
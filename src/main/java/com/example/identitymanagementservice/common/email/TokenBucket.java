@@ -0,0 +1,47 @@
+package com.example.identitymanagementservice.common.email;
+
+/**
+ * Blocking token bucket used to stay under a provider's send rate (SES counts recipients per second). A request
+ * larger than what is available is granted immediately and the debt is paid off by waiting, so a bulk call for
+ * 50 recipients never waits for a bucket that could not hold 50.
+ */
+public class TokenBucket {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private double available;
+    private long lastRefillNanos;
+
+    public TokenBucket(double permitsPerSecond) {
+        this(permitsPerSecond, permitsPerSecond);
+    }
+
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.available = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public void acquire(int permits) {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+            lastRefillNanos = now;
+            available -= permits;
+            waitNanos = available >= 0 ? 0 : (long) (-available / permitsPerSecond * 1e9);
+        }
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for send rate", e);
+            }
+        }
+    }
+}
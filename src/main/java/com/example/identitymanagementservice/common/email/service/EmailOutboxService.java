@@ -0,0 +1,23 @@
+package com.example.identitymanagementservice.common.email.service;
+
+import java.util.Map;
+
+public interface EmailOutboxService {
+
+    /**
+     * Queues an email for background delivery. Joins the caller's transaction, so the email is only sent if that
+     * transaction commits.
+     */
+    void enqueue(String to, String subject, String body);
+
+    /**
+     * Queues an email rendered from a template at delivery time, so providers with stored templates can send all
+     * recipients of the template in bulk. Joins the caller's transaction like enqueue.
+     */
+    void enqueueTemplate(String to, String subject, String templateName, Map<String, String> variables);
+
+    /**
+     * Sends due emails in batches until none are left. Returns the number of emails sent.
+     */
+    int dispatch();
+}
@@ -2,12 +2,36 @@ package com.example.identitymanagementservice.common.email.service;
 
 
 
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
 import com.example.identitymanagementservice.common.email.EmailProvider;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface EmailService {
     void sendEmail(String to, String subject, String text);
     String loadTemplate(String templateName, Map<String, String> variables);
     void setProvider(EmailProvider provider);
+
+    /**
+     * Sends a batch and reports one result per message, in input order. A failed recipient does not stop the
+     * rest of the batch. Providers with a bulk API override this; the default sends one message at a time.
+     */
+    default List<EmailDeliveryResult> sendEmails(List<EmailMessage> messages) {
+        List<EmailDeliveryResult> results = new ArrayList<>(messages.size());
+        for (EmailMessage message : messages) {
+            try {
+                String text = message.isTemplated()
+                        ? loadTemplate(message.templateName(), message.variables())
+                        : message.text();
+                sendEmail(message.to(), message.subject(), text);
+                results.add(EmailDeliveryResult.sent(message.to(), null));
+            } catch (RuntimeException e) {
+                results.add(EmailDeliveryResult.failed(message.to(), e.getMessage()));
+            }
+        }
+        return results;
+    }
 }
@@ -1,53 +1,228 @@
 package com.example.identitymanagementservice.common.email.service.service.impl;
 
 
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
 import com.example.identitymanagementservice.common.email.EmailProvider;
 import com.example.identitymanagementservice.common.email.EmailTemplateUtil;
+import com.example.identitymanagementservice.common.email.TokenBucket;
 import com.example.identitymanagementservice.common.email.service.EmailService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.ses.SesClient;
+import software.amazon.awssdk.services.ses.model.AlreadyExistsException;
+import software.amazon.awssdk.services.ses.model.BulkEmailDestination;
+import software.amazon.awssdk.services.ses.model.BulkEmailDestinationStatus;
+import software.amazon.awssdk.services.ses.model.BulkEmailStatus;
 import software.amazon.awssdk.services.ses.model.Content;
+import software.amazon.awssdk.services.ses.model.CreateTemplateRequest;
 import software.amazon.awssdk.services.ses.model.Destination;
+import software.amazon.awssdk.services.ses.model.GetTemplateRequest;
 import software.amazon.awssdk.services.ses.model.Message;
+import software.amazon.awssdk.services.ses.model.SendBulkTemplatedEmailRequest;
+import software.amazon.awssdk.services.ses.model.SendBulkTemplatedEmailResponse;
 import software.amazon.awssdk.services.ses.model.SendEmailRequest;
 import software.amazon.awssdk.services.ses.model.SesException;
 import software.amazon.awssdk.services.ses.model.Body;
+import software.amazon.awssdk.services.ses.model.Template;
+import software.amazon.awssdk.services.ses.model.TemplateDoesNotExistException;
 
 
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 public class AwsSesEmailService implements EmailService {
 
+    // SendBulkTemplatedEmail accepts at most 50 destinations per call
+    static final int MAX_BULK_DESTINATIONS = 50;
+    private static final String SES_TEMPLATE_PREFIX = "idms-";
+    private static final ObjectMapper TEMPLATE_DATA_MAPPER = new ObjectMapper();
+
     private final SesClient sesClient;
+    private final TokenBucket sendRateLimiter;
+    // SES template names already created (or found) in this account
+    private final Set<String> registeredTemplates = ConcurrentHashMap.newKeySet();
     @Setter
     private String senderEmail = "default@yourdomain.com"; // can be overridden by setter
 
-    public AwsSesEmailService(SesClient sesClient) {
+    public AwsSesEmailService(SesClient sesClient, TokenBucket sendRateLimiter) {
         this.sesClient = sesClient;
+        this.sendRateLimiter = sendRateLimiter;
     }
 
     @Override
     public void sendEmail(String to, String subject, String text) {
         try {
-            Destination destination = Destination.builder().toAddresses(to).build();
-            Message message = Message.builder()
-                    .subject(Content.builder().data(subject).build())
-                    .body(Body.builder().text(Content.builder().data(text).build()).build())
-                    .build();
-
-            SendEmailRequest request = SendEmailRequest.builder()
-                    .destination(destination)
-                    .message(message)
-                    .source(senderEmail)
-                    .build();
-
-            sesClient.sendEmail(request);
+            send(to, subject, text);
         } catch (SesException e) {
             log.error("AWS SES: Failed to send email to {}", to, e);
+            // Rethrow so the outbox dispatcher retries instead of marking the email sent
+            throw e;
+        }
+    }
+
+    /**
+     * Plain messages go out one SendEmail call each. Templated messages are grouped by template and subject and
+     * sent with SendBulkTemplatedEmail, up to 50 recipients per call, after registering the local template with SES.
+     */
+    @Override
+    public List<EmailDeliveryResult> sendEmails(List<EmailMessage> messages) {
+        EmailDeliveryResult[] results = new EmailDeliveryResult[messages.size()];
+        Map<String, List<Integer>> templatedGroups = new LinkedHashMap<>();
+
+        for (int i = 0; i < messages.size(); i++) {
+            EmailMessage message = messages.get(i);
+            if (message.isTemplated()) {
+                templatedGroups.computeIfAbsent(message.templateName() + '\n' + message.subject(),
+                        key -> new ArrayList<>()).add(i);
+            } else {
+                try {
+                    results[i] = EmailDeliveryResult.sent(message.to(),
+                            send(message.to(), message.subject(), message.text()));
+                } catch (SesException e) {
+                    results[i] = EmailDeliveryResult.failed(message.to(), errorMessage(e));
+                }
+            }
+        }
+
+        templatedGroups.values().forEach(indexes -> sendTemplated(messages, indexes, results));
+        return Arrays.asList(results);
+    }
+
+    private String send(String to, String subject, String text) {
+        Destination destination = Destination.builder().toAddresses(to).build();
+        Message message = Message.builder()
+                .subject(Content.builder().data(subject).build())
+                .body(Body.builder().text(Content.builder().data(text).build()).build())
+                .build();
+
+        SendEmailRequest request = SendEmailRequest.builder()
+                .destination(destination)
+                .message(message)
+                .source(senderEmail)
+                .build();
+
+        sendRateLimiter.acquire(1);
+        return sesClient.sendEmail(request).messageId();
+    }
+
+    private void sendTemplated(List<EmailMessage> messages, List<Integer> indexes, EmailDeliveryResult[] results) {
+        EmailMessage first = messages.get(indexes.get(0));
+        String sesTemplate;
+        try {
+            sesTemplate = registerTemplate(first.templateName(), first.subject());
+        } catch (RuntimeException e) {
+            log.error("AWS SES: Could not register template {}", first.templateName(), e);
+            indexes.forEach(i -> results[i] = EmailDeliveryResult.failed(messages.get(i).to(), e.getMessage()));
+            return;
+        }
+
+        for (int from = 0; from < indexes.size(); from += MAX_BULK_DESTINATIONS) {
+            List<Integer> chunk = new ArrayList<>();
+            List<BulkEmailDestination> destinations = new ArrayList<>();
+            for (int i : indexes.subList(from, Math.min(from + MAX_BULK_DESTINATIONS, indexes.size()))) {
+                try {
+                    destinations.add(BulkEmailDestination.builder()
+                            .destination(Destination.builder().toAddresses(messages.get(i).to()).build())
+                            .replacementTemplateData(templateData(messages.get(i).variables()))
+                            .build());
+                    chunk.add(i);
+                } catch (IllegalArgumentException e) {
+                    // Only this recipient fails; the rest of the chunk still goes out
+                    results[i] = EmailDeliveryResult.failed(messages.get(i).to(), e.getMessage());
+                }
+            }
+            if (chunk.isEmpty()) {
+                continue;
+            }
+
+            try {
+                // SES rate limits count recipients, not API calls
+                sendRateLimiter.acquire(chunk.size());
+                SendBulkTemplatedEmailResponse response = sesClient.sendBulkTemplatedEmail(
+                        SendBulkTemplatedEmailRequest.builder()
+                                .source(senderEmail)
+                                .template(sesTemplate)
+                                .defaultTemplateData("{}")
+                                .destinations(destinations)
+                                .build());
+
+                // Statuses come back in destination order
+                List<BulkEmailDestinationStatus> statuses = response.status();
+                for (int j = 0; j < chunk.size(); j++) {
+                    String to = messages.get(chunk.get(j)).to();
+                    BulkEmailDestinationStatus status = j < statuses.size() ? statuses.get(j) : null;
+                    results[chunk.get(j)] = toResult(to, status);
+                }
+            } catch (SesException e) {
+                log.error("AWS SES: Bulk send of template {} to {} recipient(s) failed",
+                        first.templateName(), chunk.size(), e);
+                chunk.forEach(i -> results[i] = EmailDeliveryResult.failed(messages.get(i).to(), errorMessage(e)));
+            }
+        }
+    }
+
+    // Template name includes a hash of subject and body, so editing the local template registers a new SES template
+    private String registerTemplate(String templateName, String subject) {
+        String source = EmailTemplateUtil.loadTemplateSource(templateName);
+        String sesTemplate = SES_TEMPLATE_PREFIX + templateName.replaceAll("[^A-Za-z0-9_-]", "-") + "-"
+                + Integer.toHexString(Objects.hash(subject, source));
+        if (registeredTemplates.contains(sesTemplate)) {
+            return sesTemplate;
+        }
+
+        try {
+            sesClient.getTemplate(GetTemplateRequest.builder().templateName(sesTemplate).build());
+        } catch (TemplateDoesNotExistException e) {
+            try {
+                sesClient.createTemplate(CreateTemplateRequest.builder()
+                        .template(Template.builder()
+                                .templateName(sesTemplate)
+                                .subjectPart(subject)
+                                .textPart(source)
+                                .build())
+                        .build());
+                log.info("AWS SES: Registered template {}", sesTemplate);
+            } catch (AlreadyExistsException raced) {
+                // Another instance created it first
+            }
+        }
+        registeredTemplates.add(sesTemplate);
+        return sesTemplate;
+    }
+
+    private static EmailDeliveryResult toResult(String to, BulkEmailDestinationStatus status) {
+        if (status == null) {
+            return EmailDeliveryResult.failed(to, "No status returned by SES");
+        }
+        if (status.status() == BulkEmailStatus.SUCCESS) {
+            return EmailDeliveryResult.sent(to, status.messageId());
         }
+        String error = status.error() != null ? status.statusAsString() + ": " + status.error() : status.statusAsString();
+        return EmailDeliveryResult.failed(to, error);
+    }
+
+    private static String templateData(Map<String, String> variables) {
+        try {
+            return TEMPLATE_DATA_MAPPER.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Template variables are not serializable", e);
+        }
+    }
+
+    private static String errorMessage(SesException e) {
+        return e.awsErrorDetails() != null && e.awsErrorDetails().errorMessage() != null
+                ? e.awsErrorDetails().errorMessage()
+                : e.getMessage();
     }
 
     @Override
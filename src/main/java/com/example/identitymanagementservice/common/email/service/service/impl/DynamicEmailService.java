@@ -2,9 +2,12 @@ package com.example.identitymanagementservice.common.email.service.service.impl;
 
 
 
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
 import com.example.identitymanagementservice.common.email.EmailProvider;
 import com.example.identitymanagementservice.common.email.service.EmailService;
 
+import java.util.List;
 import java.util.Map;
 
 public class DynamicEmailService implements EmailService {
@@ -23,6 +26,11 @@ public class DynamicEmailService implements EmailService {
         getDelegate().sendEmail(to, subject, text);
     }
 
+    @Override
+    public List<EmailDeliveryResult> sendEmails(List<EmailMessage> messages) {
+        return getDelegate().sendEmails(messages);
+    }
+
     @Override
     public String loadTemplate(String templateName, Map<String, String> variables) {
         return getDelegate().loadTemplate(templateName, variables);
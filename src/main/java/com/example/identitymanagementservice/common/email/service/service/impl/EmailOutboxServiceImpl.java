@@ -0,0 +1,183 @@
+package com.example.identitymanagementservice.common.email.service.service.impl;
+
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
+import com.example.identitymanagementservice.common.email.service.EmailOutboxService;
+import com.example.identitymanagementservice.common.email.service.EmailService;
+import com.example.identitymanagementservice.enums.EmailOutboxStatus;
+import com.example.identitymanagementservice.model.EmailOutbox;
+import com.example.identitymanagementservice.repository.EmailOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox for outgoing email. Rows are claimed in short transactions by pushing next_attempt_at out by
+ * the lease, so no DB connection or row lock is held while talking to the mail relay, and a crashed dispatcher's
+ * rows become due again once the lease expires. Failures retry with exponential backoff until max-attempts, after
+ * which the row is left as DEAD for inspection, with its body and template variables cleared.
+ */
+@Slf4j
+@Service
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public EmailOutboxServiceImpl(EmailOutboxRepository emailOutboxRepository,
+                                  EmailService emailService,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.email.outbox.batch-size:50}") int batchSize,
+                                  @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${app.email.outbox.lease:5m}") Duration lease,
+                                  @Value("${app.email.outbox.initial-backoff:30s}") Duration initialBackoff,
+                                  @Value("${app.email.outbox.max-backoff:1h}") Duration maxBackoff) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Override
+    @Transactional
+    public void enqueue(String to, String subject, String body) {
+        EmailOutbox email = pending(to, subject);
+        email.setBody(body);
+        emailOutboxRepository.save(email);
+    }
+
+    @Override
+    @Transactional
+    public void enqueueTemplate(String to, String subject, String templateName, Map<String, String> variables) {
+        EmailOutbox email = pending(to, subject);
+        email.setTemplateName(templateName);
+        email.setTemplateVariables(Map.copyOf(variables));
+        emailOutboxRepository.save(email);
+    }
+
+    private static EmailOutbox pending(String to, String subject) {
+        Instant now = Instant.now();
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setNextAttemptAt(now);
+        email.setCreatedOn(now);
+        return email;
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${app.email.outbox.initial-delay:10s}",
+            fixedDelayString = "${app.email.outbox.poll-interval:5s}")
+    public int dispatch() {
+        int sent = 0;
+        List<EmailOutbox> batch;
+        do {
+            batch = claimDue();
+            if (!batch.isEmpty()) {
+                sent += deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+        return sent;
+    }
+
+    private List<EmailOutbox> claimDue() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutbox> due = emailOutboxRepository.lockDue(now, batchSize);
+            // Managed entities: the lease and attempt count are flushed on commit
+            due.forEach(email -> {
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plus(lease));
+            });
+            return due;
+        });
+    }
+
+    // One batch send per claimed batch, so providers with a bulk API and rate limiting see the whole batch
+    private int deliver(List<EmailOutbox> batch) {
+        List<EmailMessage> messages = batch.stream()
+                .map(EmailOutboxServiceImpl::toMessage)
+                .toList();
+
+        List<EmailDeliveryResult> results;
+        try {
+            results = emailService.sendEmails(messages);
+        } catch (RuntimeException e) {
+            log.warn("Email batch of {} failed: {}", batch.size(), e.getMessage());
+            results = List.of();
+        }
+
+        int sent = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutbox email = batch.get(i);
+            EmailDeliveryResult result = i < results.size() ? results.get(i) : null;
+            if (result != null && result.sent()) {
+                transactionTemplate.executeWithoutResult(status ->
+                        emailOutboxRepository.markSent(email.getId(), EmailOutboxStatus.SENT, Instant.now()));
+                sent++;
+            } else {
+                recordFailure(email, result != null ? result.error() : "No delivery result");
+            }
+        }
+        return sent;
+    }
+
+    private static EmailMessage toMessage(EmailOutbox email) {
+        if (email.getTemplateName() != null) {
+            Map<String, String> variables = email.getTemplateVariables() != null
+                    ? email.getTemplateVariables()
+                    : Map.of();
+            return EmailMessage.templated(email.getRecipient(), email.getSubject(), email.getTemplateName(), variables);
+        }
+        return EmailMessage.plain(email.getRecipient(), email.getSubject(), email.getBody());
+    }
+
+    private void recordFailure(EmailOutbox email, String error) {
+        if (error == null) {
+            error = "Unknown error";
+        } else if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        String lastError = error;
+        if (email.getAttempts() >= maxAttempts) {
+            log.error("Giving up on email {} to {} after {} attempts: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), lastError);
+            transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.markDead(
+                    email.getId(), EmailOutboxStatus.DEAD, lastError));
+        } else {
+            Instant retryAt = Instant.now().plus(backoff(email.getAttempts()));
+            log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), retryAt, lastError);
+            transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.markFailed(
+                    email.getId(), EmailOutboxStatus.PENDING, retryAt, lastError));
+        }
+    }
+
+    // initial-backoff doubled per attempt, capped at max-backoff
+    Duration backoff(int attempts) {
+        int exponent = Math.min(attempts - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+}
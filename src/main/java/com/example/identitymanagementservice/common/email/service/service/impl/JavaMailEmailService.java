@@ -1,13 +1,19 @@
 package com.example.identitymanagementservice.common.email.service.service.impl;
 
 
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
 import com.example.identitymanagementservice.common.email.EmailProvider;
 import com.example.identitymanagementservice.common.email.EmailTemplateUtil;
 import com.example.identitymanagementservice.common.email.service.EmailService;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class JavaMailEmailService implements EmailService {
@@ -27,6 +33,45 @@ public class JavaMailEmailService implements EmailService {
         mailSender.send(message);
     }
 
+    /**
+     * Sends the whole batch in one send(...) call, so it goes out over a single SMTP connection, and maps Spring's
+     * failed-message report back to per-recipient results.
+     */
+    @Override
+    public List<EmailDeliveryResult> sendEmails(List<EmailMessage> messages) {
+        SimpleMailMessage[] mailMessages = new SimpleMailMessage[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            EmailMessage message = messages.get(i);
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setTo(message.to());
+            mailMessage.setSubject(message.subject());
+            mailMessage.setText(message.isTemplated()
+                    ? loadTemplate(message.templateName(), message.variables())
+                    : message.text());
+            mailMessages[i] = mailMessage;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        try {
+            mailSender.send(mailMessages);
+        } catch (MailSendException e) {
+            // No failed messages means every message was accepted and only closing the connection failed
+            failures = e.getFailedMessages();
+        } catch (MailException e) {
+            batchFailure = e;
+        }
+
+        List<EmailDeliveryResult> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < mailMessages.length; i++) {
+            Exception failure = batchFailure != null ? batchFailure : failures.get(mailMessages[i]);
+            results.add(failure == null
+                    ? EmailDeliveryResult.sent(messages.get(i).to(), null)
+                    : EmailDeliveryResult.failed(messages.get(i).to(), failure.getMessage()));
+        }
+        return results;
+    }
+
     @Override
     public String loadTemplate(String templateName, Map<String, String> variables) {
         return EmailTemplateUtil.loadTemplate(templateName, variables);
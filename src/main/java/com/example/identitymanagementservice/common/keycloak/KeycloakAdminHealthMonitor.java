@@ -0,0 +1,96 @@
+package com.example.identitymanagementservice.common.keycloak;
+
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.Keycloak;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Probes the Keycloak admin connection in the background so request paths don't have to.
+ * Each probe obtains (or refreshes) the admin token and makes one cheap realm-scoped call. The result is exposed to
+ * callers through {@link #isAvailable()} and to Spring Boot health as the "keycloakAdmin" component.
+ */
+@Slf4j
+@Component("keycloakAdminHealthIndicator")
+public class KeycloakAdminHealthMonitor implements HealthIndicator {
+
+    private final Keycloak keycloakAdmin;
+    private final String realm;
+    private final int failureThreshold;
+
+    private volatile ProbeResult lastResult = ProbeResult.UNKNOWN;
+
+    public KeycloakAdminHealthMonitor(Keycloak keycloakAdmin,
+                                      @Value("${keycloak.realm}") String realm,
+                                      @Value("${keycloak.admin.health.failure-threshold:2}") int failureThreshold) {
+        this.keycloakAdmin = keycloakAdmin;
+        this.realm = realm;
+        this.failureThreshold = failureThreshold;
+    }
+
+    @Scheduled(initialDelayString = "${keycloak.admin.health.initial-delay:0s}",
+            fixedDelayString = "${keycloak.admin.health.interval:15s}")
+    public void probe() {
+        ProbeResult previous = lastResult;
+        try {
+            // Fails if the client credentials are rejected or the token endpoint is unreachable
+            keycloakAdmin.tokenManager().getAccessToken();
+            // Fails if the admin API itself is unreachable or the token lacks access to the realm
+            keycloakAdmin.realm(realm).users().count();
+
+            lastResult = new ProbeResult(State.UP, 0, Instant.now(), null);
+            if (previous.state() == State.DOWN) {
+                log.info("Keycloak admin connection recovered");
+            }
+        } catch (Exception e) {
+            int failures = previous.consecutiveFailures() + 1;
+            State state = failures >= failureThreshold ? State.DOWN : previous.state();
+            lastResult = new ProbeResult(state, failures, Instant.now(), e.getMessage());
+            if (state == State.DOWN && previous.state() != State.DOWN) {
+                log.error("Keycloak admin connection is down: {}", e.getMessage());
+            } else {
+                log.warn("Keycloak admin probe failed ({} in a row): {}", failures, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * False only once the probe has seen Keycloak fail repeatedly; an unprobed connection counts as available.
+     */
+    public boolean isAvailable() {
+        return lastResult.state() != State.DOWN;
+    }
+
+    @Override
+    public Health health() {
+        ProbeResult result = lastResult;
+        Health.Builder builder = switch (result.state()) {
+            case UP -> Health.up();
+            case DOWN -> Health.down();
+            case UNKNOWN -> Health.unknown();
+        };
+        builder.withDetail("realm", realm)
+                .withDetail("consecutiveFailures", result.consecutiveFailures());
+        if (result.checkedAt() != null) {
+            builder.withDetail("checkedAt", result.checkedAt().toString());
+        }
+        if (result.error() != null) {
+            builder.withDetail("error", result.error());
+        }
+        return builder.build();
+    }
+
+    private enum State {
+        UNKNOWN, UP, DOWN
+    }
+
+    private record ProbeResult(State state, int consecutiveFailures, Instant checkedAt, String error) {
+
+        static final ProbeResult UNKNOWN = new ProbeResult(State.UNKNOWN, 0, null, null);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.identitymanagementservice.common.keycloak;
+
+import com.example.identitymanagementservice.common.cache.CacheInvalidationBus;
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+import com.example.identitymanagementservice.model.Employee;
+import com.example.identitymanagementservice.repository.EmployeeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.USER_NOT_FOUND;
+
+/**
+ * Resolves an employeeCode to its Keycloak user id from Employee.keycloakUserId, behind a bounded cache.
+ * Only when the column is empty does it fall back to an exact username search in Keycloak, and then it writes the
+ * id back so the next lookup stays local. Code that deletes or recreates a Keycloak user calls evict(...), which
+ * also reaches the other instances through the CacheInvalidationBus.
+ */
+@Slf4j
+@Component
+public class KeycloakUserIdResolver implements MeterBinder {
+
+    private static final String CACHE_NAME = "keycloak-user-ids";
+
+    private final Keycloak keycloakAdmin;
+    private final EmployeeRepository employeeRepository;
+    private final EmployeeIdentityCache employeeIdentityCache;
+    private final CacheInvalidationBus invalidationBus;
+    private final String realm;
+    private final Cache<String, String> userIds;
+
+    public KeycloakUserIdResolver(Keycloak keycloakAdmin,
+                                  EmployeeRepository employeeRepository,
+                                  EmployeeIdentityCache employeeIdentityCache,
+                                  CacheInvalidationBus invalidationBus,
+                                  @Value("${keycloak.realm}") String realm,
+                                  @Value("${keycloak.user-ids.maximum-size:10000}") long maximumSize,
+                                  @Value("${keycloak.user-ids.ttl:30m}") Duration ttl) {
+        this.keycloakAdmin = keycloakAdmin;
+        this.employeeRepository = employeeRepository;
+        this.employeeIdentityCache = employeeIdentityCache;
+        this.invalidationBus = invalidationBus;
+        this.realm = realm;
+        this.userIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        invalidationBus.subscribe(CACHE_NAME, userIds::invalidateAll, userIds::invalidateAll);
+    }
+
+    /**
+     * Returns the Keycloak user id for the employeeCode, or throws NOT_FOUND when neither the DB nor Keycloak knows it.
+     */
+    public String resolve(String employeeCode) {
+        String cached = userIds.getIfPresent(employeeCode);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<Employee> employee = employeeRepository.findById(employeeCode);
+        String userId = employee.map(Employee::getKeycloakUserId).orElse(null);
+        if (userId == null) {
+            String found = searchKeycloak(employeeCode);
+            employee.ifPresent(e -> writeBack(e, found));
+            userId = found;
+        }
+
+        userIds.put(employeeCode, userId);
+        return userId;
+    }
+
+    /**
+     * Forgets the cached id of an employee whose Keycloak user was deleted or recreated, here and on the other
+     * instances.
+     */
+    public void evict(String employeeCode) {
+        userIds.invalidate(employeeCode);
+        invalidationBus.publish(CACHE_NAME, List.of(employeeCode));
+    }
+
+    private String searchKeycloak(String employeeCode) {
+        return keycloakAdmin.realm(realm).users().search(employeeCode, true).stream()
+                .filter(u -> u.getUsername().equalsIgnoreCase(employeeCode))
+                .map(UserRepresentation::getId)
+                .findFirst()
+                .orElseThrow(() -> new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + " " + employeeCode));
+    }
+
+    private void writeBack(Employee employee, String userId) {
+        try {
+            employee.setKeycloakUserId(userId);
+            employeeRepository.save(employee);
+            employeeIdentityCache.evict(employee.getEmployeeCode(), userId);
+        } catch (Exception e) {
+            // The id is still returned and cached; the next cache miss simply searches again
+            log.warn("Could not store Keycloak user id for {}: {}", employee.getEmployeeCode(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, userIds, CACHE_NAME);
+    }
+}
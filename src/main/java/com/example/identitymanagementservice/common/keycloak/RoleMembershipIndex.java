@@ -0,0 +1,656 @@
+package com.example.identitymanagementservice.common.keycloak;
+
+import com.example.identitymanagementservice.common.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.ws.rs.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.GroupResource;
+import org.keycloak.admin.client.resource.RoleResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Process-local index of realm role memberships: role -> members and user -> roles, with composite roles expanded.
+ * Members are the users a role is mapped to directly plus the members of groups (and their subgroups) it is mapped
+ * to; the realm's default roles are added to every indexed user, and their members are all users of the realm.
+ * Built from paged role-membership reads, refreshed a few roles at a time on a schedule and patched immediately
+ * after our own role mutations. Other instances hear about those mutations through the CacheInvalidationBus and
+ * re-read the affected roles. Readers only dereference a volatile immutable snapshot, so role checks never lock.
+ * Until the first build completes, lookups go to Keycloak directly.
+ */
+@Slf4j
+@Component
+public class RoleMembershipIndex implements MeterBinder, DisposableBean {
+
+    private static final String METRIC_PREFIX = "keycloak.roles.index.";
+    private static final String CACHE_NAME = "role-memberships";
+    // A role patched while it was being re-read is re-read again, at most this many times per refresh
+    private static final int MAX_REREAD_ATTEMPTS = 3;
+
+    private final Keycloak keycloakAdmin;
+    private final CacheInvalidationBus invalidationBus;
+    private final String realm;
+    private final int pageSize;
+    private final int refreshBatchSize;
+    // Re-reads roles named by other instances, off the invalidation bus' listener thread
+    private final Executor rereadExecutor;
+    // Roles named by other instances and not re-read yet
+    private final Set<String> dirtyRoles = ConcurrentHashMap.newKeySet();
+
+    // Source of truth for writers, guarded by "this": direct members, members through groups and realm composites
+    // of each role, plus the roles the realm's default role bundles
+    private Map<String, Map<String, RoleMember>> directMembers = Map.of();
+    private Map<String, Map<String, RoleMember>> groupMembers = Map.of();
+    private Map<String, Set<String>> composites = Map.of();
+    private Set<String> defaultRoles = Set.of();
+    // Every user of the realm, only read while the realm has default roles of its own
+    private Map<String, RoleMember> realmUsers = Map.of();
+    private int refreshCursor;
+    // Bumped by every local patch of a role; a re-read started before the patch must not overwrite it
+    private final Map<String, Long> patchVersions = new HashMap<>();
+    // Set when invalidations may have been missed; the next scheduled run rebuilds everything
+    private volatile boolean rebuildRequested;
+
+    // Derived view for readers, replaced wholesale on every change
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @Autowired
+    public RoleMembershipIndex(Keycloak keycloakAdmin,
+                               CacheInvalidationBus invalidationBus,
+                               @Value("${keycloak.realm}") String realm,
+                               @Value("${keycloak.roles.page-size:500}") int pageSize,
+                               @Value("${keycloak.roles.refresh-batch-size:10}") int refreshBatchSize) {
+        this(keycloakAdmin, invalidationBus, realm, pageSize, refreshBatchSize, rereadExecutor());
+    }
+
+    RoleMembershipIndex(Keycloak keycloakAdmin,
+                        CacheInvalidationBus invalidationBus,
+                        String realm,
+                        int pageSize,
+                        int refreshBatchSize,
+                        Executor rereadExecutor) {
+        this.keycloakAdmin = keycloakAdmin;
+        this.invalidationBus = invalidationBus;
+        this.realm = realm;
+        this.pageSize = pageSize;
+        this.refreshBatchSize = refreshBatchSize;
+        this.rereadExecutor = rereadExecutor;
+        invalidationBus.subscribe(CACHE_NAME, this::markDirty, () -> rebuildRequested = true);
+    }
+
+    // One thread and room for one queued run: a run still waiting picks up every role marked dirty before it starts
+    private static ThreadPoolTaskExecutor rereadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("role-index-reread-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    public boolean isReady() {
+        return snapshot.ready();
+    }
+
+    /**
+     * Effective members of a realm role keyed by Keycloak user id. Before the index is ready this falls back to a
+     * paged read of the role's direct and group members. Default roles are held by every user in the realm, so for
+     * those the indexed realm users are returned instead.
+     */
+    public Map<String, RoleMember> membersOf(String roleName) {
+        Snapshot current = snapshot;
+        if (current.ready() && current.defaultRoles().contains(roleName)) {
+            return current.realmUsers();
+        }
+        if (current.ready()) {
+            return current.membersByRole().getOrDefault(roleName, Map.of());
+        }
+        Map<String, RoleMember> members = new LinkedHashMap<>(fetchMembers(roleName));
+        fetchGroupMembers(roleName).forEach(members::putIfAbsent);
+        return members;
+    }
+
+    /**
+     * Effective realm roles of a user, excluding Keycloak's built-in default roles. Empty when the index is not ready
+     * or does not know the user (e.g. a user holding only default roles), in which case callers ask Keycloak.
+     */
+    public Optional<Set<String>> rolesOf(String username) {
+        Snapshot current = snapshot;
+        if (!current.ready() || username == null) {
+            return Optional.empty();
+        }
+        String userId = current.userIdByUsername().get(username.toLowerCase(Locale.ROOT));
+        return userId == null ? Optional.empty() : Optional.of(current.rolesByUser().get(userId));
+    }
+
+    /**
+     * Rebuilds the whole index from Keycloak; used for the initial build.
+     */
+    public void warm() {
+        rebuildRequested = false;
+        Map<String, RoleRepresentation> roles = listRoles();
+        Map<String, Long> versions = versionsOf(roles.keySet());
+        Map<String, Map<String, RoleMember>> members = new HashMap<>();
+        Map<String, Map<String, RoleMember>> viaGroups = new HashMap<>();
+        Map<String, Set<String>> roleComposites = new HashMap<>();
+        for (RoleRepresentation role : roles.values()) {
+            members.put(role.getName(), fetchMembers(role.getName()));
+            viaGroups.put(role.getName(), fetchGroupMembers(role.getName()));
+            roleComposites.put(role.getName(), fetchComposites(role));
+        }
+        Set<String> defaults = fetchDefaultRoles();
+        Map<String, RoleMember> everyone = hasOwnDefaultRoles(defaults) ? fetchAllUsers() : Map.of();
+
+        Set<String> patched;
+        synchronized (this) {
+            patched = changedSince(versions);
+            // Keep what the patch left until the role is read again below
+            for (String roleName : patched) {
+                Map<String, RoleMember> current = directMembers.get(roleName);
+                if (current != null) {
+                    members.put(roleName, current);
+                }
+            }
+            directMembers = Map.copyOf(members);
+            groupMembers = Map.copyOf(viaGroups);
+            composites = Map.copyOf(roleComposites);
+            defaultRoles = defaults;
+            realmUsers = everyone;
+            publish();
+        }
+        if (!patched.isEmpty()) {
+            reread(roles, patched);
+        }
+        log.info("Role-membership index built: {} role(s), {} user(s)",
+                snapshot.membersByRole().size(), snapshot.rolesByUser().size());
+    }
+
+    @Scheduled(initialDelayString = "${keycloak.roles.initial-delay:0s}",
+            fixedDelayString = "${keycloak.roles.refresh-interval:60s}")
+    public void refresh() {
+        try {
+            if (!isReady() || rebuildRequested) {
+                warm();
+            } else {
+                refreshNextBatch();
+            }
+        } catch (Exception e) {
+            // Keep serving the last snapshot; the next run retries
+            log.warn("Role-membership index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    // Re-reads the next few roles round-robin, so a full pass is spread over several runs instead of one burst
+    private void refreshNextBatch() {
+        Map<String, RoleRepresentation> roles = listRoles();
+        List<String> names = new ArrayList<>(roles.keySet());
+        if (names.isEmpty()) {
+            return;
+        }
+
+        // A single call, so the default roles are re-read on every run; the realm's users once per pass over the roles
+        Set<String> defaults = fetchDefaultRoles();
+        int start;
+        boolean readRealmUsers;
+        synchronized (this) {
+            start = refreshCursor % names.size();
+            refreshCursor = start + Math.min(refreshBatchSize, names.size());
+            readRealmUsers = hasOwnDefaultRoles(defaults) && (refreshCursor >= names.size() || realmUsers.isEmpty());
+        }
+        List<String> batch = new ArrayList<>();
+        for (int i = start; i < start + Math.min(refreshBatchSize, names.size()); i++) {
+            batch.add(names.get(i % names.size()));
+        }
+        // Plus whatever a failed hand-off left behind
+        takeDirtyRoles().stream().filter(roleName -> !batch.contains(roleName)).forEach(batch::add);
+        Map<String, RoleMember> everyone = readRealmUsers ? fetchAllUsers() : null;
+        synchronized (this) {
+            defaultRoles = defaults;
+            if (everyone != null) {
+                realmUsers = everyone;
+            } else if (!hasOwnDefaultRoles(defaults)) {
+                realmUsers = Map.of();
+            }
+        }
+        reread(roles, batch);
+    }
+
+    /**
+     * Re-reads the given roles now; used when another instance changed their members.
+     */
+    public void refreshRoles(Collection<String> roleNames) {
+        if (!isReady()) {
+            // The pending full build reads them anyway
+            return;
+        }
+        reread(listRoles(), roleNames);
+    }
+
+    // Bus handler: runs on the listener thread, so it only records the roles and leaves the Keycloak reads to the
+    // reread executor
+    private void markDirty(Collection<String> roleNames) {
+        dirtyRoles.addAll(roleNames);
+        rereadExecutor.execute(this::rereadDirtyRoles);
+    }
+
+    private void rereadDirtyRoles() {
+        List<String> roleNames = takeDirtyRoles();
+        if (roleNames.isEmpty()) {
+            return;
+        }
+        try {
+            refreshRoles(roleNames);
+        } catch (Exception e) {
+            // Left for the next scheduled refresh
+            dirtyRoles.addAll(roleNames);
+            log.warn("Re-reading role(s) {} failed: {}", roleNames, e.getMessage());
+        }
+    }
+
+    private List<String> takeDirtyRoles() {
+        List<String> roleNames = new ArrayList<>(dirtyRoles);
+        dirtyRoles.removeAll(roleNames);
+        return roleNames;
+    }
+
+    // Fetches the given roles and merges them, fetching again any role a local patch touched in the meantime
+    private void reread(Map<String, RoleRepresentation> roles, Collection<String> roleNames) {
+        Collection<String> pending = roleNames.stream().filter(roles::containsKey).toList();
+        for (int attempt = 0; attempt < MAX_REREAD_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            Map<String, Long> versions = versionsOf(pending);
+            Map<String, Map<String, RoleMember>> members = new HashMap<>();
+            Map<String, Map<String, RoleMember>> viaGroups = new HashMap<>();
+            Map<String, Set<String>> roleComposites = new HashMap<>();
+            for (String roleName : pending) {
+                members.put(roleName, fetchMembers(roleName));
+                viaGroups.put(roleName, fetchGroupMembers(roleName));
+                roleComposites.put(roleName, fetchComposites(roles.get(roleName)));
+            }
+            pending = merge(roles, members, viaGroups, roleComposites, versions);
+        }
+        if (!pending.isEmpty()) {
+            // Still being patched; the patched entries stay until the next pass reads them
+            log.debug("Role(s) {} kept changing during refresh, keeping the patched memberships", pending);
+        }
+    }
+
+    /**
+     * Replaces the re-read roles in the writer maps; callers pass the full current role list. Direct members of
+     * roles patched since versions were taken are left alone and returned, so the caller can read them again.
+     */
+    private synchronized Set<String> merge(Map<String, RoleRepresentation> roles,
+                                           Map<String, Map<String, RoleMember>> members,
+                                           Map<String, Map<String, RoleMember>> viaGroups,
+                                           Map<String, Set<String>> roleComposites,
+                                           Map<String, Long> versions) {
+        Set<String> patched = changedSince(versions);
+        Map<String, Map<String, RoleMember>> nextMembers = new HashMap<>(directMembers);
+        Map<String, Map<String, RoleMember>> nextGroupMembers = new HashMap<>(groupMembers);
+        Map<String, Set<String>> nextComposites = new HashMap<>(composites);
+        // Roles deleted in Keycloak disappear, new roles start empty until their turn comes
+        nextMembers.keySet().retainAll(roles.keySet());
+        nextGroupMembers.keySet().retainAll(roles.keySet());
+        nextComposites.keySet().retainAll(roles.keySet());
+        members.forEach((roleName, roleMembers) -> {
+            if (!patched.contains(roleName)) {
+                nextMembers.put(roleName, roleMembers);
+            }
+        });
+        // Local patches only ever touch direct mappings, so group reads always apply
+        nextGroupMembers.putAll(viaGroups);
+        nextComposites.putAll(roleComposites);
+        directMembers = Map.copyOf(nextMembers);
+        groupMembers = Map.copyOf(nextGroupMembers);
+        composites = Map.copyOf(nextComposites);
+        publish();
+        return patched;
+    }
+
+    private synchronized Map<String, Long> versionsOf(Collection<String> roleNames) {
+        Map<String, Long> versions = new HashMap<>();
+        for (String roleName : roleNames) {
+            versions.put(roleName, patchVersions.getOrDefault(roleName, 0L));
+        }
+        return versions;
+    }
+
+    // Callers hold the lock
+    private Set<String> changedSince(Map<String, Long> versions) {
+        Set<String> changed = new HashSet<>();
+        versions.forEach((roleName, version) -> {
+            if (patchVersions.getOrDefault(roleName, 0L) != version.longValue()) {
+                changed.add(roleName);
+            }
+        });
+        return changed;
+    }
+
+    // Callers hold the lock
+    private void bump(Collection<String> roleNames) {
+        roleNames.forEach(roleName -> patchVersions.merge(roleName, 1L, Long::sum));
+    }
+
+    /**
+     * Records roles we just assigned through the admin API, without waiting for the next refresh, and tells the
+     * other instances to re-read them.
+     */
+    public void onRolesAssigned(String userId, String username, Collection<String> roleNames) {
+        applyAssigned(userId, username, roleNames);
+        invalidationBus.publish(CACHE_NAME, roleNames);
+    }
+
+    /**
+     * Records roles we just removed through the admin API, without waiting for the next refresh, and tells the
+     * other instances to re-read them.
+     */
+    public void onRolesRemoved(String userId, Collection<String> roleNames) {
+        applyRemoved(userId, roleNames);
+        invalidationBus.publish(CACHE_NAME, roleNames);
+    }
+
+    private synchronized void applyAssigned(String userId, String username, Collection<String> roleNames) {
+        if (userId == null || roleNames == null) {
+            return;
+        }
+        // Also before the first build, so a build already reading these roles reads them again
+        bump(roleNames);
+        if (!snapshot.ready()) {
+            return;
+        }
+        // Reuse what we already know about the user; the next refresh fills in the first name for newcomers
+        RoleMember known = snapshot.membersByRole().values().stream()
+                .map(members -> members.get(userId))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        RoleMember member = known != null
+                ? known
+                : new RoleMember(userId, username != null ? username.toLowerCase(Locale.ROOT) : null, null);
+
+        Map<String, Map<String, RoleMember>> next = new HashMap<>(directMembers);
+        for (String roleName : roleNames) {
+            Map<String, RoleMember> roleMembers = new HashMap<>(next.getOrDefault(roleName, Map.of()));
+            roleMembers.put(userId, member);
+            next.put(roleName, Map.copyOf(roleMembers));
+        }
+        directMembers = Map.copyOf(next);
+        if (hasOwnDefaultRoles(defaultRoles) && !realmUsers.containsKey(userId)) {
+            // A newly provisioned user holds the default roles from now on
+            Map<String, RoleMember> nextRealmUsers = new HashMap<>(realmUsers);
+            nextRealmUsers.put(userId, member);
+            realmUsers = Map.copyOf(nextRealmUsers);
+        }
+        publish();
+    }
+
+    private synchronized void applyRemoved(String userId, Collection<String> roleNames) {
+        if (userId == null || roleNames == null) {
+            return;
+        }
+        bump(roleNames);
+        if (!snapshot.ready()) {
+            return;
+        }
+        Map<String, Map<String, RoleMember>> next = new HashMap<>(directMembers);
+        for (String roleName : roleNames) {
+            Map<String, RoleMember> roleMembers = new HashMap<>(next.getOrDefault(roleName, Map.of()));
+            roleMembers.remove(userId);
+            next.put(roleName, Map.copyOf(roleMembers));
+        }
+        directMembers = Map.copyOf(next);
+        publish();
+    }
+
+    // Expands composites and publishes a new reader snapshot; callers hold the lock
+    private void publish() {
+        Map<String, Set<String>> rolesByUser = new HashMap<>();
+        Map<String, RoleMember> users = new HashMap<>();
+        for (Map<String, Map<String, RoleMember>> source : List.of(groupMembers, directMembers)) {
+            source.forEach((roleName, members) -> {
+                Set<String> effectiveRoles = expand(roleName);
+                members.forEach((userId, member) -> {
+                    rolesByUser.computeIfAbsent(userId, id -> new HashSet<>()).addAll(effectiveRoles);
+                    users.put(userId, member);
+                });
+            });
+        }
+
+        // Every user holds the default roles; only users the index knows get them here, the rest ask Keycloak
+        Set<String> effectiveDefaults = new HashSet<>();
+        defaultRoles.forEach(roleName -> effectiveDefaults.addAll(expand(roleName)));
+        rolesByUser.values().forEach(roles -> roles.addAll(effectiveDefaults));
+
+        Map<String, Map<String, RoleMember>> membersByRole = new HashMap<>();
+        Map<String, String> userIdByUsername = new HashMap<>();
+        rolesByUser.forEach((userId, roles) -> {
+            RoleMember member = users.get(userId);
+            for (String roleName : roles) {
+                membersByRole.computeIfAbsent(roleName, r -> new LinkedHashMap<>()).put(userId, member);
+            }
+            if (member.username() != null) {
+                userIdByUsername.put(member.username().toLowerCase(Locale.ROOT), userId);
+            }
+        });
+
+        Map<String, Set<String>> frozenRolesByUser = new HashMap<>();
+        rolesByUser.forEach((userId, roles) -> frozenRolesByUser.put(userId, Set.copyOf(roles)));
+        Map<String, Map<String, RoleMember>> frozenMembersByRole = new HashMap<>();
+        membersByRole.forEach((roleName, members) -> frozenMembersByRole.put(roleName, Map.copyOf(members)));
+
+        snapshot = new Snapshot(true, Map.copyOf(frozenMembersByRole), Map.copyOf(frozenRolesByUser),
+                Map.copyOf(userIdByUsername), Set.copyOf(effectiveDefaults),
+                effectiveDefaults.isEmpty() ? Map.of() : realmUsers);
+    }
+
+    // The role itself plus everything reachable through its composites
+    private Set<String> expand(String roleName) {
+        Set<String> expanded = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(roleName);
+        while (!pending.isEmpty()) {
+            String current = pending.pop();
+            if (expanded.add(current)) {
+                composites.getOrDefault(current, Set.of()).forEach(pending::push);
+            }
+        }
+        expanded.removeIf(this::isBuiltIn);
+        return expanded;
+    }
+
+    private Map<String, RoleRepresentation> listRoles() {
+        Map<String, RoleRepresentation> roles = new LinkedHashMap<>();
+        for (RoleRepresentation role : keycloakAdmin.realm(realm).roles().list()) {
+            if (!isBuiltIn(role.getName())) {
+                roles.put(role.getName(), role);
+            }
+        }
+        return roles;
+    }
+
+    private Map<String, RoleMember> fetchMembers(String roleName) {
+        Map<String, RoleMember> members = new LinkedHashMap<>();
+        RoleResource roleResource = keycloakAdmin.realm(realm).roles().get(roleName);
+        int first = 0;
+        List<UserRepresentation> page;
+        do {
+            try {
+                page = roleResource.getUserMembers(first, pageSize);
+            } catch (NotFoundException e) {
+                // Unknown role: nobody holds it
+                return Map.of();
+            }
+            for (UserRepresentation user : page) {
+                members.put(user.getId(), new RoleMember(user.getId(), user.getUsername(), user.getFirstName()));
+            }
+            first += pageSize;
+        } while (page.size() == pageSize);
+
+        return Map.copyOf(members);
+    }
+
+    // Users holding the role through a group mapping; members of subgroups inherit the group's roles
+    private Map<String, RoleMember> fetchGroupMembers(String roleName) {
+        RoleResource roleResource = keycloakAdmin.realm(realm).roles().get(roleName);
+        Deque<GroupRepresentation> pending = new ArrayDeque<>();
+        int first = 0;
+        Set<GroupRepresentation> groups;
+        do {
+            try {
+                groups = roleResource.getRoleGroups(first, pageSize);
+            } catch (NotFoundException e) {
+                return Map.of();
+            }
+            pending.addAll(groups);
+            first += pageSize;
+        } while (groups.size() == pageSize);
+
+        Map<String, RoleMember> members = new LinkedHashMap<>();
+        Set<String> visited = new HashSet<>();
+        while (!pending.isEmpty()) {
+            GroupRepresentation group = pending.pop();
+            if (!visited.add(group.getId())) {
+                continue;
+            }
+            GroupResource groupResource = keycloakAdmin.realm(realm).groups().group(group.getId());
+            try {
+                List<UserRepresentation> page;
+                first = 0;
+                do {
+                    page = groupResource.members(first, pageSize);
+                    for (UserRepresentation user : page) {
+                        members.putIfAbsent(user.getId(),
+                                new RoleMember(user.getId(), user.getUsername(), user.getFirstName()));
+                    }
+                    first += pageSize;
+                } while (page.size() == pageSize);
+
+                List<GroupRepresentation> subGroups;
+                first = 0;
+                do {
+                    subGroups = groupResource.getSubGroups(first, pageSize, true);
+                    pending.addAll(subGroups);
+                    first += pageSize;
+                } while (subGroups.size() == pageSize);
+            } catch (NotFoundException e) {
+                // Group deleted while we were reading it
+            }
+        }
+        return Map.copyOf(members);
+    }
+
+    // Direct composites of the realm's default role, which Keycloak maps to every user
+    private Set<String> fetchDefaultRoles() {
+        try {
+            Set<String> names = new HashSet<>();
+            for (RoleRepresentation composite : keycloakAdmin.realm(realm).roles().get("default-roles-" + realm)
+                    .getRealmRoleComposites()) {
+                names.add(composite.getName());
+            }
+            return Set.copyOf(names);
+        } catch (NotFoundException e) {
+            return Set.of();
+        }
+    }
+
+    // Only then does anyone ask for the members of a default role; the built-in ones are never indexed
+    private boolean hasOwnDefaultRoles(Set<String> defaults) {
+        return defaults.stream().anyMatch(roleName -> !isBuiltIn(roleName));
+    }
+
+    // Every user of the realm, for roles everybody holds
+    private Map<String, RoleMember> fetchAllUsers() {
+        Map<String, RoleMember> members = new LinkedHashMap<>();
+        int first = 0;
+        List<UserRepresentation> page;
+        do {
+            page = keycloakAdmin.realm(realm).users().list(first, pageSize);
+            for (UserRepresentation user : page) {
+                members.put(user.getId(), new RoleMember(user.getId(), user.getUsername(), user.getFirstName()));
+            }
+            first += pageSize;
+        } while (page.size() == pageSize);
+        return Map.copyOf(members);
+    }
+
+    private Set<String> fetchComposites(RoleRepresentation role) {
+        if (!role.isComposite()) {
+            return Set.of();
+        }
+        try {
+            Set<String> names = new HashSet<>();
+            for (RoleRepresentation composite : keycloakAdmin.realm(realm).roles().get(role.getName())
+                    .getRealmRoleComposites()) {
+                names.add(composite.getName());
+            }
+            return Set.copyOf(names);
+        } catch (NotFoundException e) {
+            return Set.of();
+        }
+    }
+
+    // Roles every user gets implicitly; indexing them would mean indexing the whole realm
+    private boolean isBuiltIn(String roleName) {
+        return roleName.equalsIgnoreCase("offline_access")
+                || roleName.equalsIgnoreCase("uma_authorization")
+                || roleName.equalsIgnoreCase("default-roles-" + realm);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + "roles", this, index -> index.snapshot.membersByRole().size())
+                .description("Realm roles held in the role-membership index")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + "users", this, index -> index.snapshot.rolesByUser().size())
+                .description("Users held in the role-membership index")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        if (rereadExecutor instanceof ThreadPoolTaskExecutor executor) {
+            executor.shutdown();
+        }
+    }
+
+    public record RoleMember(String userId, String username, String firstName) {
+    }
+
+    private record Snapshot(boolean ready,
+                            Map<String, Map<String, RoleMember>> membersByRole,
+                            Map<String, Set<String>> rolesByUser,
+                            Map<String, String> userIdByUsername,
+                            Set<String> defaultRoles,
+                            Map<String, RoleMember> realmUsers) {
+
+        static final Snapshot EMPTY = new Snapshot(false, Map.of(), Map.of(), Map.of(), Set.of(), Map.of());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.identitymanagementservice.config;
+
+import com.example.identitymanagementservice.common.config.AuthorizationProperties;
+import com.example.identitymanagementservice.common.config.KeycloakCircuitStateChangedEvent;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Instant;
+
+@Slf4j
+@Configuration
+public class KeycloakCircuitBreakerConfig {
+
+    private static final String KEYCLOAK_AUTHORIZATION = "keycloak-authorization";
+
+    @Bean
+    public CircuitBreakerRegistry keycloakCircuitBreakerRegistry(AuthorizationProperties properties) {
+        AuthorizationProperties.CircuitBreaker settings = properties.getCircuitBreaker();
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
+                .slidingWindowSize((int) Math.max(1, settings.getSlidingWindow().toSeconds()))
+                .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+                .failureRateThreshold(settings.getFailureRateThreshold())
+                .slowCallRateThreshold(settings.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(settings.getSlowCallDuration())
+                .waitDurationInOpenState(settings.getWaitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(settings.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+        return CircuitBreakerRegistry.of(config);
+    }
+
+    @Bean
+    public CircuitBreaker keycloakAuthorizationCircuitBreaker(CircuitBreakerRegistry keycloakCircuitBreakerRegistry,
+                                                              ApplicationEventPublisher eventPublisher) {
+        CircuitBreaker circuitBreaker = keycloakCircuitBreakerRegistry.circuitBreaker(KEYCLOAK_AUTHORIZATION);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.State from = event.getStateTransition().getFromState();
+            CircuitBreaker.State to = event.getStateTransition().getToState();
+            log.warn("Keycloak authorization circuit breaker moved from {} to {}", from, to);
+            eventPublisher.publishEvent(new KeycloakCircuitStateChangedEvent(
+                    event.getCircuitBreakerName(), from, to, Instant.now()));
+        });
+        return circuitBreaker;
+    }
+
+    // resilience4j.circuitbreaker.state / calls / failure.rate / slow.call.rate, tagged with the breaker name
+    @Bean
+    public MeterBinder keycloakCircuitBreakerMetrics(CircuitBreakerRegistry keycloakCircuitBreakerRegistry) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(keycloakCircuitBreakerRegistry);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.identitymanagementservice.config;
+
+import com.example.identitymanagementservice.common.config.AuthorizationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Pooled HTTP client used for UMA calls to Keycloak, so a slow Keycloak cannot hold servlet threads indefinitely.
+ * Connections are HTTP/1.1 kept alive in the pool: the classic httpclient5 client behind RestTemplate does not speak
+ * HTTP/2, which would need the async client and a non-blocking caller.
+ */
+@Configuration
+public class KeycloakHttpClientConfig {
+
+    private static final String POOL_METRIC_PREFIX = "keycloak.http.pool.";
+
+    @Bean
+    public PoolingHttpClientConnectionManager keycloakConnectionManager(AuthorizationProperties properties) {
+        AuthorizationProperties.Http http = properties.getHttp();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(connectionConfig(http))
+                .build();
+    }
+
+    @Bean
+    public CloseableHttpClient keycloakHttpClient(PoolingHttpClientConnectionManager keycloakConnectionManager,
+                                                  AuthorizationProperties properties) {
+        AuthorizationProperties.Http http = properties.getHttp();
+        return HttpClients.custom()
+                .setConnectionManager(keycloakConnectionManager)
+                .setDefaultRequestConfig(requestConfig(http))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(http.getIdleEvictionTimeout().toMillis()))
+                .build();
+    }
+
+    static ConnectionConfig connectionConfig(AuthorizationProperties.Http http) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(http.getConnectTimeout().toMillis()))
+                .setSocketTimeout(Timeout.ofMilliseconds(http.getReadTimeout().toMillis()))
+                .setTimeToLive(TimeValue.ofMilliseconds(http.getConnectionTimeToLive().toMillis()))
+                .build();
+    }
+
+    static RequestConfig requestConfig(AuthorizationProperties.Http http) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(http.getPoolAcquireTimeout().toMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(http.getReadTimeout().toMillis()))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate keycloakRestTemplate(CloseableHttpClient keycloakHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(keycloakHttpClient));
+    }
+
+    @Bean
+    public MeterBinder keycloakConnectionPoolMetrics(PoolingHttpClientConnectionManager keycloakConnectionManager) {
+        return registry -> {
+            registerPoolGauge(registry, keycloakConnectionManager, "leased", PoolStats::getLeased,
+                    "Connections currently in use");
+            registerPoolGauge(registry, keycloakConnectionManager, "available", PoolStats::getAvailable,
+                    "Idle connections kept alive in the pool");
+            registerPoolGauge(registry, keycloakConnectionManager, "pending", PoolStats::getPending,
+                    "Requests waiting for a connection");
+            registerPoolGauge(registry, keycloakConnectionManager, "max", PoolStats::getMax,
+                    "Maximum number of pooled connections");
+        };
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry,
+                                          PoolingHttpClientConnectionManager connectionManager,
+                                          String name,
+                                          ToIntFunction<PoolStats> stat,
+                                          String description) {
+        Gauge.builder(POOL_METRIC_PREFIX + name, connectionManager, cm -> stat.applyAsInt(cm.getTotalStats()))
+                .description(description)
+                .register(registry);
+    }
+}
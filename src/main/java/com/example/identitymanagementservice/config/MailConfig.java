@@ -1,10 +1,14 @@
 package com.example.identitymanagementservice.config;
 
 import com.example.identitymanagementservice.common.email.EmailProvider;
+import com.example.identitymanagementservice.common.email.EmailTemplateUtil;
+import com.example.identitymanagementservice.common.email.PooledJavaMailSender;
+import com.example.identitymanagementservice.common.email.TokenBucket;
 import com.example.identitymanagementservice.common.email.service.service.impl.AwsSesEmailService;
 import com.example.identitymanagementservice.common.email.service.service.impl.DynamicEmailService;
 import com.example.identitymanagementservice.common.email.service.service.impl.JavaMailEmailService;
 import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,9 +19,20 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import software.amazon.awssdk.services.ses.SesClient;
 
+import java.time.Duration;
+
 @Configuration
 public class MailConfig {
 
+    // false re-reads templates on every render (handy while editing them locally)
+    @Value("${app.email.templates.cache:true}")
+    private boolean cacheTemplates;
+
+    @PostConstruct
+    void configureTemplateCache() {
+        EmailTemplateUtil.setCacheEnabled(cacheTemplates);
+    }
+
     //Add this when using Mail
    /*
     @Value("${spring.mail.username}") String username,
@@ -28,9 +43,17 @@ public class MailConfig {
     @Bean
     public JavaMailSender javaMailSender(
             @Value("${spring.mail.host}") String host,
-            @Value("${spring.mail.port}") int port
+            @Value("${spring.mail.port}") int port,
+            @Value("${app.email.smtp.pool.enabled:false}") boolean pooled,
+            @Value("${app.email.smtp.pool.size:4}") int poolSize,
+            @Value("${app.email.smtp.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+            @Value("${app.email.smtp.pool.max-idle:60s}") Duration maxIdle,
+            @Value("${app.email.smtp.pool.acquire-timeout:10s}") Duration acquireTimeout
     ) {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        // Pooled mode keeps SMTP connections open between sends instead of connecting per message
+        JavaMailSenderImpl mailSender = pooled
+                ? new PooledJavaMailSender(poolSize, maxMessagesPerConnection, maxIdle, acquireTimeout)
+                : new JavaMailSenderImpl();
         mailSender.setHost(host);
         mailSender.setPort(port);
 
@@ -52,8 +75,10 @@ public class MailConfig {
 
     @Bean
     @ConditionalOnProperty(name = "app.email.provider", havingValue = "AWS_SES")
-    public AwsSesEmailService awsSesEmailService(SesClient sesClient) {
-        return new AwsSesEmailService(sesClient);
+    public AwsSesEmailService awsSesEmailService(SesClient sesClient,
+                                                 @Value("${aws.ses.max-send-rate:14}") double maxSendRate) {
+        // Keep under the account's SES maximum send rate (recipients per second)
+        return new AwsSesEmailService(sesClient, new TokenBucket(maxSendRate));
     }
 
     @Bean
@@ -5,16 +5,23 @@ import com.example.identitymanagementservice.service.ReportingManagerService;
 import com.example.identitymanagementservice.common.annotations.RequiresKeycloakAuthorization;
 import com.example.identitymanagementservice.common.constants.MessageConstants;
 import com.example.identitymanagementservice.dto.request.AssignRMRequest;
+import com.example.identitymanagementservice.dto.request.UserBatchLookupRequest;
+import com.example.identitymanagementservice.dto.request.response.HierarchyMemberDto;
+import com.example.identitymanagementservice.dto.request.response.UserBatchLookupResponse;
 import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
 import com.example.identitymanagementservice.dto.request.UserIdentityDto;
 
 import com.example.identitymanagementservice.dto.request.pagenationdto.FilterRequest;
 import com.example.identitymanagementservice.dto.request.pagenationdto.SortRequest;
 import com.example.identitymanagementservice.dto.request.pagenationdto.response.PagedResponse;
+import com.example.identitymanagementservice.enums.AuthorizationFallbackPolicy;
+import com.example.identitymanagementservice.enums.TotalCountMode;
 import com.example.identitymanagementservice.utils.FilterUtil;
 import com.example.identitymanagementservice.utils.SortUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,9 +30,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 
@@ -43,15 +52,25 @@ public class EmployeeController {
 
     //get EmployeeDetails form employeeCode
     @GetMapping("/users/{employeeCode}")
-    @RequiresKeycloakAuthorization(resource = "tms:com", scope = "tms:com:get")
+    @RequiresKeycloakAuthorization(resource = "tms:com", scope = "tms:com:get",
+            whenKeycloakUnavailable = AuthorizationFallbackPolicy.SERVE_STALE)
     public ResponseEntity<UserIdentityDto> getUserByEmployeeCode(@PathVariable String employeeCode) {
         UserIdentityDto dto = employeeService.getUserByEmployeeCodedb(employeeCode);
         return ResponseEntity.ok(dto);
     }
 
+    //resolve many employeeCodes / Keycloak user ids in one call; one authorization check per batch
+    @PostMapping("/users/batch")
+    @RequiresKeycloakAuthorization(resource = "tms:com", scope = "tms:com:get",
+            whenKeycloakUnavailable = AuthorizationFallbackPolicy.SERVE_STALE)
+    public ResponseEntity<UserBatchLookupResponse> getUsersBatch(@Valid @RequestBody UserBatchLookupRequest request) {
+        return ResponseEntity.ok(employeeService.getUsersBatch(request));
+    }
+
     //get My details
     @GetMapping("/users/my")
-    @RequiresKeycloakAuthorization(resource = "idms:user", scope = "idms:user:get")
+    @RequiresKeycloakAuthorization(resource = "idms:user", scope = "idms:user:get",
+            whenKeycloakUnavailable = AuthorizationFallbackPolicy.SERVE_STALE)
     public ResponseEntity<UserIdentityDto> getOwnProfile() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String keycloakUserId = authentication.getName(); // This returns Keycloak UUID
@@ -63,22 +82,30 @@ public class EmployeeController {
     @GetMapping("/users")
     @RequiresKeycloakAuthorization(resource = "manager:com", scope = "com:manager:get")
     public ResponseEntity<PagedResponse<UserResponseDto>> getAllUsers(
-            @RequestParam int offset,
+            @RequestParam(defaultValue = "0") int offset,
             @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String total,
             @RequestParam Map<String, String> allParams,
             @RequestParam(required = false, name = "sort") String sortParam) {
 
         List<FilterRequest> filters = FilterUtil.parseFilters(allParams);
         List<SortRequest> sorts = SortUtil.parseSort(sortParam);
 
-        return ResponseEntity.ok(employeeService.getAllUsers(offset, limit, filters, sorts));
+        return ResponseEntity.ok(employeeService.getAllUsers(offset, limit, cursor, TotalCountMode.from(total), filters, sorts));
     }
 
-    @GetMapping("/users/all")
+    //all active employees, streamed: a JSON array by default, NDJSON with Accept: application/x-ndjson
+    @GetMapping(value = "/users/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     @RequiresKeycloakAuthorization(resource = "manager:com", scope = "com:manager:get")
-    public ResponseEntity<List<Map<String, String>>> getAllUsers() {
-        List<Map<String, String>> users = employeeService.getAllUsersList();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<StreamingResponseBody> getAllUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        StreamingResponseBody body = output -> employeeService.exportAllUsers(output, ndjson);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
 
@@ -96,7 +123,8 @@ public class EmployeeController {
 
     //get managerName for employeeCode
     @GetMapping("/users/{employeeCode}/manager")
-    @RequiresKeycloakAuthorization(resource = "tms:com", scope = "tms:com:get")
+    @RequiresKeycloakAuthorization(resource = "tms:com", scope = "tms:com:get",
+            whenKeycloakUnavailable = AuthorizationFallbackPolicy.SERVE_STALE)
     public ResponseEntity<String> getManagerNameByEmployeeCode(
             @PathVariable String employeeCode
     ) {
@@ -126,4 +154,21 @@ public class EmployeeController {
 
     }
 
+    //Get all employees under RM, direct and transitive, with their depth below the manager
+    @GetMapping("users/manager/{managerCode}/reports")
+    @RequiresKeycloakAuthorization(resource = "idms:adminrm", scope = "idms:user:get")
+    public ResponseEntity<List<HierarchyMemberDto>> getReportingTree(
+            @PathVariable String managerCode,
+            @RequestParam(required = false) Integer maxDepth) {
+        return ResponseEntity.ok(employeeRmService.getReportingTree(managerCode, maxDepth));
+    }
+
+    //Get the chain of managers above employeeCode, nearest first
+    @GetMapping("/users/{employeeCode}/managers")
+    @RequiresKeycloakAuthorization(resource = "tms:com", scope = "tms:com:get",
+            whenKeycloakUnavailable = AuthorizationFallbackPolicy.SERVE_STALE)
+    public ResponseEntity<List<HierarchyMemberDto>> getManagerChain(@PathVariable String employeeCode) {
+        return ResponseEntity.ok(employeeRmService.getManagerChain(employeeCode));
+    }
+
 }
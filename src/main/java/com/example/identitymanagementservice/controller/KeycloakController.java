@@ -1,5 +1,7 @@
 package com.example.identitymanagementservice.controller;
 
+import com.example.identitymanagementservice.enums.BulkImportFormat;
+import com.example.identitymanagementservice.service.BulkOnboardingService;
 import com.example.identitymanagementservice.service.KeycloakAssignRoleService;
 import com.example.identitymanagementservice.service.KeycloakCreateUserService;
 import com.example.identitymanagementservice.common.annotations.RequiresKeycloakAuthorization;
@@ -7,8 +9,10 @@ import com.example.identitymanagementservice.common.constants.MessageConstants;
 import com.example.identitymanagementservice.dto.request.UserRoleAssignRequestDto;
 import com.example.identitymanagementservice.dto.request.UserRoleUpdateRequestDto;
 import com.example.identitymanagementservice.dto.request.pagenationdto.PasswordUpdateRequestDto;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +25,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.identitymanagementservice.dto.request.EmployeeRequestDto;
 
@@ -35,6 +40,7 @@ public class KeycloakController {
 
     private final KeycloakCreateUserService keycloakAdminService;
     private final KeycloakAssignRoleService keycloakAssignRoleService;
+    private final BulkOnboardingService bulkOnboardingService;
 
     // Repeated string literals
     private static final String RESOURCE_IDMS_ADMIN = "idms:admin";
@@ -54,6 +60,17 @@ public class KeycloakController {
         return ResponseEntity.ok().body(response);
     }
 
+    //Bulk onboarding - CSV or NDJSON upload, one NDJSON result line per row streamed back as chunks complete
+    @PostMapping(value = "/users/bulk",
+            consumes = {BulkImportFormat.CSV_MEDIA_TYPE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RequiresKeycloakAuthorization(resource = RESOURCE_IDMS_ADMIN, scope = "idms:user:add")
+    public ResponseEntity<StreamingResponseBody> bulkCreateUsers(HttpServletRequest request) {
+        BulkImportFormat format = BulkImportFormat.fromContentType(request.getContentType());
+        StreamingResponseBody body = output -> bulkOnboardingService.onboard(request.getInputStream(), format, output);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     //Edit My Profile
     @PatchMapping("/users/my")
     @RequiresKeycloakAuthorization(resource = "idms:user", scope = SCOPE_IDMS_USER_UPDATE)
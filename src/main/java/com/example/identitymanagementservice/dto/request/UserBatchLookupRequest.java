@@ -0,0 +1,22 @@
+package com.example.identitymanagementservice.dto.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchLookupRequest {
+
+    public static final int MAX_KEYS = 500;
+
+    @Size(max = MAX_KEYS, message = "At most " + MAX_KEYS + " employeeCodes per request")
+    private List<String> employeeCodes;
+
+    @Size(max = MAX_KEYS, message = "At most " + MAX_KEYS + " keycloakUserIds per request")
+    private List<String> keycloakUserIds;
+}
@@ -1,18 +1,25 @@
 package com.example.identitymanagementservice.dto.request.pagenationdto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
 @Getter
 @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PagedResponse<T> {
     private List<T> content;
-    private int page;
+    // page, totalElements and totalPages are null for cursor pages and ?total=none, which are not counted
+    private Integer page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    // true when totalElements is a planner estimate (?total=approximate) rather than a COUNT
+    private Boolean totalApproximate;
+    private Integer totalPages;
     private boolean last;
+    // Opaque token for the next page (pass as ?cursor=); null on the last page
+    private String nextCursor;
 
     public PagedResponse(List<T> content, int page, int size, long totalElements) {
         this.content = content;
@@ -23,5 +30,25 @@ public class PagedResponse<T> {
         this.last = page == totalPages - 1;
     }
 
-}
+    private PagedResponse(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.last = nextCursor == null;
+    }
 
+    public static <T> PagedResponse<T> cursorPage(List<T> content, int size, String nextCursor) {
+        return new PagedResponse<>(content, size, nextCursor);
+    }
+
+    /**
+     * An offset page whose total was not counted; last comes from fetching one row past the page.
+     */
+    public static <T> PagedResponse<T> slice(List<T> content, int page, int size, boolean hasNext) {
+        PagedResponse<T> response = new PagedResponse<>(content, size, null);
+        response.page = page;
+        response.last = !hasNext;
+        return response;
+    }
+
+}
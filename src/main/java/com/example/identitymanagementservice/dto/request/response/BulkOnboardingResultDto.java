@@ -0,0 +1,21 @@
+package com.example.identitymanagementservice.dto.request.response;
+
+import com.example.identitymanagementservice.enums.BulkOnboardingStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@RequiredArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOnboardingResultDto {
+    private int row;
+    private String employeeCode;
+    private BulkOnboardingStatus status;
+    private String keycloakUserId;
+    private String message;
+}
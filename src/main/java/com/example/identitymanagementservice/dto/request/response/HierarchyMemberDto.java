@@ -0,0 +1,24 @@
+package com.example.identitymanagementservice.dto.request.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An employee in a reporting line, with depth = number of reporting steps from the employee the query started at
+ * (1 = direct report or direct manager).
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+@AllArgsConstructor
+public class HierarchyMemberDto {
+    private String employeeCode;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String managerCode;
+    private String employeeType;
+    private int depth;
+}
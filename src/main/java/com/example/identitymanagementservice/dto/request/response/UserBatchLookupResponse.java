@@ -0,0 +1,23 @@
+package com.example.identitymanagementservice.dto.request.response;
+
+import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of a batch lookup: each active employee matched by any requested key (once, in request order), and the
+ * requested keys that matched nobody.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchLookupResponse {
+    private List<UserIdentityDto> found;
+    private List<String> missingEmployeeCodes;
+    private List<String> missingKeycloakUserIds;
+}
@@ -0,0 +1,12 @@
+package com.example.identitymanagementservice.enums;
+
+
+/**
+ * What a protected endpoint does when Keycloak cannot answer an authorization check.
+ */
+public enum AuthorizationFallbackPolicy {
+    // Reject the request with 503
+    FAIL_CLOSED,
+    // Reuse a cached decision still inside the stale grace period, otherwise reject with 503
+    SERVE_STALE
+}
@@ -0,0 +1,19 @@
+package com.example.identitymanagementservice.enums;
+
+import org.springframework.http.MediaType;
+
+public enum BulkImportFormat {
+    // Header row with employeeCode,email,firstName,lastName[,employeeType], then one employee per line
+    CSV,
+    // One EmployeeRequestDto JSON object per line
+    NDJSON;
+
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    public static BulkImportFormat fromContentType(String contentType) {
+        if (contentType != null && MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
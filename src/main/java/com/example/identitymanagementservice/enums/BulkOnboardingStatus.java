@@ -0,0 +1,6 @@
+package com.example.identitymanagementservice.enums;
+
+public enum BulkOnboardingStatus {
+    CREATED,
+    FAILED
+}
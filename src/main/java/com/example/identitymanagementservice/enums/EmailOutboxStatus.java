@@ -0,0 +1,10 @@
+package com.example.identitymanagementservice.enums;
+
+
+public enum EmailOutboxStatus {
+    // Waiting for (re)delivery once next_attempt_at has passed
+    PENDING,
+    SENT,
+    // Gave up after the configured number of attempts
+    DEAD
+}
@@ -0,0 +1,31 @@
+package com.example.identitymanagementservice.enums;
+
+import com.example.identitymanagementservice.common.constants.ErrorCode;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+
+import java.util.Locale;
+
+
+/**
+ * How a paged listing reports its total (?total=exact|none|approximate).
+ */
+public enum TotalCountMode {
+    // COUNT(*) with the same filters
+    EXACT,
+    // No total; the page reports whether there is a next page by fetching one extra row
+    NONE,
+    // Row estimate from planner statistics; only for unfiltered listings
+    APPROXIMATE;
+
+    public static TotalCountMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new TimesheetException(ErrorCode.VALIDATION_ERROR,
+                    "total must be one of exact, none, approximate");
+        }
+    }
+}
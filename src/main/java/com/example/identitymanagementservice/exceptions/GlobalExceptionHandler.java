@@ -40,6 +40,7 @@ public class GlobalExceptionHandler {
             case ErrorCode.UNAUTHORIZED_ERROR -> HttpStatus.UNAUTHORIZED;
             case ErrorCode.VALIDATION_ERROR -> HttpStatus.BAD_REQUEST;
             case ErrorCode.INTERNAL_SERVER_ERROR -> HttpStatus.INTERNAL_SERVER_ERROR;
+            case ErrorCode.SERVICE_UNAVAILABLE_ERROR -> HttpStatus.SERVICE_UNAVAILABLE;
             default -> HttpStatus.BAD_REQUEST;
         };
     }
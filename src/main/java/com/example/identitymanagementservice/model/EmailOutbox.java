@@ -0,0 +1,76 @@
+package com.example.identitymanagementservice.model;
+
+import com.example.identitymanagementservice.enums.EmailOutboxStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * An email waiting to be sent, written in the same transaction as the change that triggered it. Holds either a
+ * rendered body or a template name plus variables. Body and variables are cleared once the message is sent, since
+ * onboarding emails carry a temporary password.
+ */
+@Entity
+@Table(name = "email_outbox",
+        indexes = @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class EmailOutbox {
+
+    // Sequence (not identity) so bulk onboarding can batch the inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "body", columnDefinition = "text")
+    private String body;
+
+    @Column(name = "template_name")
+    private String templateName;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "template_variables", columnDefinition = "jsonb")
+    private Map<String, String> templateVariables;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_on", nullable = false)
+    private Instant createdOn;
+
+    @Column(name = "sent_on")
+    private Instant sentOn;
+}
@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 
+// Finder indexes are partial (WHERE is_active), which @Index can't express; see db/migration
 @Entity
 @Table(name = "employee")
 @NoArgsConstructor
@@ -0,0 +1,39 @@
+package com.example.identitymanagementservice.repository;
+
+import com.example.identitymanagementservice.enums.EmailOutboxStatus;
+import com.example.identitymanagementservice.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // SKIP LOCKED lets several instances drain the outbox without picking up the same rows
+    @Query(value = "select * from email_outbox where status = 'PENDING' and next_attempt_at <= :now "
+            + "order by next_attempt_at limit :limit for update skip locked", nativeQuery = true)
+    List<EmailOutbox> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update EmailOutbox o set o.status = :status, o.body = null, o.templateVariables = null, "
+            + "o.lastError = null, o.sentOn = :sentOn where o.id = :id")
+    int markSent(@Param("id") Long id, @Param("status") EmailOutboxStatus status, @Param("sentOn") Instant sentOn);
+
+    @Modifying
+    @Query("update EmailOutbox o set o.status = :status, o.nextAttemptAt = :nextAttemptAt, o.lastError = :lastError "
+            + "where o.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") EmailOutboxStatus status,
+                   @Param("nextAttemptAt") Instant nextAttemptAt, @Param("lastError") String lastError);
+
+    // Dead rows are kept for inspection, minus the content: onboarding emails carry a temporary password
+    @Modifying
+    @Query("update EmailOutbox o set o.status = :status, o.body = null, o.templateVariables = null, "
+            + "o.lastError = :lastError where o.id = :id")
+    int markDead(@Param("id") Long id, @Param("status") EmailOutboxStatus status,
+                 @Param("lastError") String lastError);
+}
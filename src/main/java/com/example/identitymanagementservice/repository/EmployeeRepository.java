@@ -1,22 +1,76 @@
 package com.example.identitymanagementservice.repository;
 
+import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
 import com.example.identitymanagementservice.model.Employee;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, String>, JpaSpecificationExecutor<Employee> {
+public interface EmployeeRepository extends JpaRepository<Employee, String>, JpaSpecificationExecutor<Employee>,
+        EmployeeRepositoryCustom {
     Optional<Employee> findByEmailAndIsActiveTrue(String email);
     Optional<Employee> findByEmployeeCodeAndIsActiveTrue(String employeeCode);
 
     List<Employee> findAllByIsActiveTrue();
     Optional<Employee> findByKeycloakUserIdAndIsActiveTrue(String keycloakUserId);
 
-    List<Employee> findByManagerCodeAndIsActiveTrue(String managerCode);
+    @Query("select new com.example.identitymanagementservice.dto.request.UserIdentityDto("
+            + "e.keycloakUserId, e.employeeCode, e.firstName, e.lastName, e.email, e.employeeType, e.managerCode) "
+            + "from Employee e where e.employeeCode = :employeeCode and e.isActive = true")
+    Optional<UserIdentityDto> findIdentityByEmployeeCode(@Param("employeeCode") String employeeCode);
+
+    @Query("select new com.example.identitymanagementservice.dto.request.UserIdentityDto("
+            + "e.keycloakUserId, e.employeeCode, e.firstName, e.lastName, e.email, e.employeeType, e.managerCode) "
+            + "from Employee e where e.keycloakUserId = :keycloakUserId and e.isActive = true")
+    Optional<UserIdentityDto> findIdentityByKeycloakUserId(@Param("keycloakUserId") String keycloakUserId);
+
+    @Query("select new com.example.identitymanagementservice.dto.request.UserIdentityDto("
+            + "e.keycloakUserId, e.employeeCode, e.firstName, e.lastName, e.email, e.employeeType, e.managerCode) "
+            + "from Employee e where e.managerCode = :managerCode and e.isActive = true")
+    List<UserIdentityDto> findIdentitiesByManagerCode(@Param("managerCode") String managerCode);
+
+    // Either list may be empty; Hibernate renders an empty IN list as a false predicate
+    @Query("select new com.example.identitymanagementservice.dto.request.UserIdentityDto("
+            + "e.keycloakUserId, e.employeeCode, e.firstName, e.lastName, e.email, e.employeeType, e.managerCode) "
+            + "from Employee e where (e.employeeCode in :employeeCodes or e.keycloakUserId in :keycloakUserIds) "
+            + "and e.isActive = true")
+    List<UserIdentityDto> findIdentitiesByEmployeeCodesOrKeycloakUserIds(
+            @Param("employeeCodes") Collection<String> employeeCodes,
+            @Param("keycloakUserIds") Collection<String> keycloakUserIds);
+
+    // Forward-only: Postgres only honours the fetch size inside a transaction, so callers must hold one open
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.example.identitymanagementservice.dto.request.response.UserResponseDto("
+            + "e.employeeCode, e.firstName, e.lastName, e.email, e.managerCode, e.employeeType) "
+            + "from Employee e where e.isActive = true")
+    Stream<UserResponseDto> streamAllActiveUsers();
+
+    List<Employee> findByEmailIn(Collection<String> emails);
+
+    @Query("select e.keycloakUserId from Employee e where e.keycloakUserId in :keycloakUserIds and e.isActive = true")
+    Set<String> findActiveKeycloakUserIdsIn(@Param("keycloakUserIds") Collection<String> keycloakUserIds);
+
+    @Modifying
+    @Query("update Employee e set e.keycloakUserId = :keycloakUserId where e.employeeCode = :employeeCode")
+    int updateKeycloakUserId(@Param("employeeCode") String employeeCode,
+                             @Param("keycloakUserId") String keycloakUserId);
 
 
 
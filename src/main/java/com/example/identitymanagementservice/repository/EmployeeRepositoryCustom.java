@@ -0,0 +1,48 @@
+package com.example.identitymanagementservice.repository;
+
+import com.example.identitymanagementservice.dto.request.response.HierarchyMemberDto;
+import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
+import com.example.identitymanagementservice.model.Employee;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Up to maxResults matching rows starting at offset, selected straight into UserResponseDto (no entities, no
+     * COUNT). Orders set by the specification (e.g. search ranking) are kept, ahead of the given sort.
+     */
+    List<UserResponseDto> findUserSlice(Specification<Employee> spec, Sort sort, long offset, int maxResults);
+
+    /**
+     * Planner estimate of the employee table's row count (pg_class.reltuples); negative if the table has never
+     * been analyzed.
+     */
+    long estimateRowCount();
+
+    /**
+     * Active employees reporting to managerCode directly or transitively, up to maxDepth levels down, ordered by
+     * depth then employeeCode. One recursive query; a reporting cycle in the data ends the walk instead of looping.
+     */
+    List<HierarchyMemberDto> findReports(String managerCode, int maxDepth);
+
+    /**
+     * The active managers above employeeCode, nearest first. The walk stops at the first missing or inactive
+     * manager, or where the chain loops back.
+     */
+    List<HierarchyMemberDto> findManagerChain(String employeeCode);
+
+    /**
+     * Whether employeeCode is managerCode itself or one of its managers, active or not; making managerCode the
+     * manager of employeeCode would then close a cycle.
+     */
+    boolean isInManagerChain(String managerCode, String employeeCode);
+
+    /**
+     * Serializes reporting-manager changes until the current transaction ends, so two concurrent assignments can't
+     * each pass the cycle check and together form a cycle.
+     */
+    void lockHierarchy();
+}
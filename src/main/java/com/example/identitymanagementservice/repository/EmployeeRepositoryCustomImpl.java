@@ -0,0 +1,156 @@
+package com.example.identitymanagementservice.repository;
+
+import com.example.identitymanagementservice.dto.request.response.HierarchyMemberDto;
+import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
+import com.example.identitymanagementservice.model.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    // path holds the codes visited so far, so a reporting cycle in the data can't recurse forever
+    private static final String REPORTS_SQL = """
+            with recursive reports as (
+                select e.employee_code, e.first_name, e.last_name, e.email, e.manager_code, e.employee_type,
+                       1 as depth, array[cast(:managerCode as varchar), e.employee_code] as path
+                from employee e
+                where e.manager_code = :managerCode and e.is_active and e.employee_code <> :managerCode
+                union all
+                select e.employee_code, e.first_name, e.last_name, e.email, e.manager_code, e.employee_type,
+                       r.depth + 1, r.path || e.employee_code
+                from reports r
+                join employee e on e.manager_code = r.employee_code and e.is_active
+                where r.depth < :maxDepth and e.employee_code <> all(r.path)
+            )
+            select employee_code, first_name, last_name, email, manager_code, employee_type, depth
+            from reports
+            order by depth, employee_code
+            """;
+
+    private static final String MANAGER_CHAIN_SQL = """
+            with recursive chain as (
+                select m.employee_code, m.first_name, m.last_name, m.email, m.manager_code, m.employee_type,
+                       1 as depth, array[e.employee_code, m.employee_code] as path
+                from employee e
+                join employee m on m.employee_code = e.manager_code and m.is_active
+                where e.employee_code = :employeeCode
+                union all
+                select m.employee_code, m.first_name, m.last_name, m.email, m.manager_code, m.employee_type,
+                       c.depth + 1, c.path || m.employee_code
+                from chain c
+                join employee m on m.employee_code = c.manager_code and m.is_active
+                where m.employee_code <> all(c.path)
+            )
+            select employee_code, first_name, last_name, email, manager_code, employee_type, depth
+            from chain
+            order by depth
+            """;
+
+    private static final String IN_MANAGER_CHAIN_SQL = """
+            with recursive chain as (
+                select e.employee_code, e.manager_code, array[e.employee_code] as path
+                from employee e
+                where e.employee_code = :managerCode
+                union all
+                select m.employee_code, m.manager_code, c.path || m.employee_code
+                from chain c
+                join employee m on m.employee_code = c.manager_code
+                where m.employee_code <> all(c.path)
+            )
+            select count(*) from chain where employee_code = :employeeCode
+            """;
+
+    // pg_advisory_xact_lock returns void, which has no JDBC mapping; count the single row instead
+    private static final String LOCK_HIERARCHY_SQL =
+            "select count(*) from (select pg_advisory_xact_lock(hashtext('employee_hierarchy'))) as locked";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserResponseDto> findUserSlice(Specification<Employee> spec, Sort sort, long offset,
+                                               int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserResponseDto> query = cb.createQuery(UserResponseDto.class);
+        Root<Employee> root = query.from(Employee.class);
+        query.select(cb.construct(UserResponseDto.class,
+                root.get("employeeCode"), root.get("firstName"), root.get("lastName"), root.get("email"),
+                root.get("managerCode"), root.get("employeeType")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // Orders the specification set (e.g. search ranking) come before the requested sort
+        List<Order> orders = new ArrayList<>(query.getOrderList());
+        orders.addAll(QueryUtils.toOrders(sort, root, cb));
+        query.orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    @Override
+    public long estimateRowCount() {
+        Object estimate = entityManager.createNativeQuery(
+                        "select cast(reltuples as bigint) from pg_class where oid = to_regclass('employee')")
+                .getSingleResult();
+        return ((Number) estimate).longValue();
+    }
+
+    @Override
+    public List<HierarchyMemberDto> findReports(String managerCode, int maxDepth) {
+        List<Tuple> rows = entityManager.createNativeQuery(REPORTS_SQL, Tuple.class)
+                .setParameter("managerCode", managerCode)
+                .setParameter("maxDepth", maxDepth)
+                .getResultList();
+        return rows.stream().map(EmployeeRepositoryCustomImpl::toHierarchyMember).toList();
+    }
+
+    @Override
+    public List<HierarchyMemberDto> findManagerChain(String employeeCode) {
+        List<Tuple> rows = entityManager.createNativeQuery(MANAGER_CHAIN_SQL, Tuple.class)
+                .setParameter("employeeCode", employeeCode)
+                .getResultList();
+        return rows.stream().map(EmployeeRepositoryCustomImpl::toHierarchyMember).toList();
+    }
+
+    @Override
+    public boolean isInManagerChain(String managerCode, String employeeCode) {
+        Object matches = entityManager.createNativeQuery(IN_MANAGER_CHAIN_SQL)
+                .setParameter("managerCode", managerCode)
+                .setParameter("employeeCode", employeeCode)
+                .getSingleResult();
+        return ((Number) matches).longValue() > 0;
+    }
+
+    @Override
+    public void lockHierarchy() {
+        entityManager.createNativeQuery(LOCK_HIERARCHY_SQL).getSingleResult();
+    }
+
+    private static HierarchyMemberDto toHierarchyMember(Tuple row) {
+        return new HierarchyMemberDto(
+                row.get("employee_code", String.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("email", String.class),
+                row.get("manager_code", String.class),
+                row.get("employee_type", String.class),
+                ((Number) row.get("depth")).intValue());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.identitymanagementservice.service;
+
+import com.example.identitymanagementservice.enums.BulkImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface BulkOnboardingService {
+    void onboard(InputStream input, BulkImportFormat format, OutputStream output) throws IOException;
+}
@@ -1,13 +1,17 @@
 package com.example.identitymanagementservice.service;
 
 import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
+import com.example.identitymanagementservice.dto.request.UserBatchLookupRequest;
 import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import com.example.identitymanagementservice.dto.request.response.UserBatchLookupResponse;
 import com.example.identitymanagementservice.dto.request.pagenationdto.FilterRequest;
 import com.example.identitymanagementservice.dto.request.pagenationdto.SortRequest;
 import com.example.identitymanagementservice.dto.request.pagenationdto.response.PagedResponse;
+import com.example.identitymanagementservice.enums.TotalCountMode;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Map;
 
 public interface EmployeeService {
     UserIdentityDto getUserByEmployeeCodedb(String employeeCode);
@@ -15,14 +19,27 @@ public interface EmployeeService {
 
     UserIdentityDto getUserByKeycloakUserId(String keycloakUserId);
 
+    /**
+     * Resolves many employee codes and/or Keycloak user ids with one query; keys that match no active employee are
+     * reported back rather than failing the batch.
+     */
+    UserBatchLookupResponse getUsersBatch(UserBatchLookupRequest request);
+
 
      PagedResponse<UserResponseDto> getAllUsers(
             int offset,
             int limit,
+            String cursor,
+            TotalCountMode total,
             List<FilterRequest> filters,
             List<SortRequest> sorts);
 
-    List<Map<String, String>> getAllUsersList();
+    /**
+     * Writes every active employee to output as NDJSON or, when ndjson is false, as one JSON array, row by row
+     * from a database cursor.
+     */
+    void exportAllUsers(OutputStream output, boolean ndjson) throws IOException;
+
     List<UserIdentityDto> getActiveEmployeesUnderManager(String managerCode);
 
 }
@@ -7,6 +7,9 @@ import java.util.Map;
 
 public interface KeycloakCreateUserService {
     Map<String, String> createUser(EmployeeRequestDto employee);
+    Map<String, String> provisionKeycloakUser(EmployeeRequestDto employee);
+    void sendWelcomeEmail(EmployeeRequestDto employee, String temporaryPassword);
+    void removeKeycloakUser(String employeeCode, String userId);
     void updateUserPassword(String userId, String newPassword);
     UserRepresentation getUserByemployeeCodekc(String employeeCode);
     UserRepresentation getUserById(String id);
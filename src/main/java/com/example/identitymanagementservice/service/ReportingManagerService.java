@@ -1,6 +1,20 @@
 package com.example.identitymanagementservice.service;
 
+import com.example.identitymanagementservice.dto.request.response.HierarchyMemberDto;
+
+import java.util.List;
+
 public interface ReportingManagerService {
     String addReportingManagerToEmployee(String employeeCode, String managerCode);
     String getManagerNameByEmployeeCode(String employeeCode);
+
+    /**
+     * All active employees under managerCode, direct and transitive, up to maxDepth levels (null = unlimited).
+     */
+    List<HierarchyMemberDto> getReportingTree(String managerCode, Integer maxDepth);
+
+    /**
+     * The managers above employeeCode, nearest first.
+     */
+    List<HierarchyMemberDto> getManagerChain(String employeeCode);
 }
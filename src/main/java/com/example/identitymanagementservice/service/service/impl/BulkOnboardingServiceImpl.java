@@ -0,0 +1,348 @@
+package com.example.identitymanagementservice.service.service.impl;
+
+import com.example.identitymanagementservice.common.constants.ErrorMessage;
+import com.example.identitymanagementservice.common.keycloak.KeycloakAdminHealthMonitor;
+import com.example.identitymanagementservice.dto.request.EmployeeRequestDto;
+import com.example.identitymanagementservice.dto.request.response.BulkOnboardingResultDto;
+import com.example.identitymanagementservice.enums.BulkImportFormat;
+import com.example.identitymanagementservice.enums.BulkOnboardingStatus;
+import com.example.identitymanagementservice.model.Employee;
+import com.example.identitymanagementservice.repository.EmployeeRepository;
+import com.example.identitymanagementservice.service.BulkOnboardingService;
+import com.example.identitymanagementservice.service.KeycloakCreateUserService;
+import com.example.identitymanagementservice.utils.EmployeeImportReader;
+import com.example.identitymanagementservice.utils.EmployeeImportReader.ImportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.EMPLOYEE_ALREADY_EXISTS;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.EMPLOYEE_SAVE_FAILED;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.KEYCLOAK_ADMIN_CONNECTION_FAILED;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.WELCOME_EMAIL_QUEUE_FAILED;
+
+/**
+ * Onboards employees from a streamed CSV/NDJSON upload in fixed-size chunks. Per chunk: validate, insert all rows
+ * in one JDBC-batched transaction, provision Keycloak users on a bounded pool, then link the ids back and queue the
+ * welcome emails. One NDJSON result line is written per input row as each chunk completes.
+ */
+@Slf4j
+@Service
+public class BulkOnboardingServiceImpl implements BulkOnboardingService, DisposableBean {
+
+    private static final String DEFAULT_EMPLOYEE_TYPE = "Employee";
+
+    private final KeycloakCreateUserService keycloakCreateUserService;
+    private final KeycloakAdminHealthMonitor keycloakAdminHealthMonitor;
+    private final EmployeeRepository employeeRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final ThreadPoolTaskExecutor keycloakExecutor;
+
+    public BulkOnboardingServiceImpl(KeycloakCreateUserService keycloakCreateUserService,
+                                     KeycloakAdminHealthMonitor keycloakAdminHealthMonitor,
+                                     EmployeeRepository employeeRepository,
+                                     EntityManager entityManager,
+                                     TransactionTemplate transactionTemplate,
+                                     Validator validator,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.bulk-onboarding.chunk-size:100}") int chunkSize,
+                                     @Value("${app.bulk-onboarding.keycloak-concurrency:8}") int keycloakConcurrency) {
+        this.keycloakCreateUserService = keycloakCreateUserService;
+        this.keycloakAdminHealthMonitor = keycloakAdminHealthMonitor;
+        this.employeeRepository = employeeRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+
+        // Bounded so a large upload cannot flood Keycloak; when saturated the caller runs the task itself
+        this.keycloakExecutor = new ThreadPoolTaskExecutor();
+        keycloakExecutor.setCorePoolSize(keycloakConcurrency);
+        keycloakExecutor.setMaxPoolSize(keycloakConcurrency);
+        keycloakExecutor.setQueueCapacity(chunkSize);
+        keycloakExecutor.setThreadNamePrefix("bulk-onboarding-");
+        keycloakExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        keycloakExecutor.initialize();
+    }
+
+    @Override
+    public void onboard(InputStream input, BulkImportFormat format, OutputStream output) throws IOException {
+        EmployeeImportReader reader = new EmployeeImportReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format, objectMapper);
+
+        // Keys already seen in this upload, to reject in-file duplicates across chunks
+        Set<String> seenCodes = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        int created = 0;
+        int failed = 0;
+        try {
+            ImportRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    int chunkCreated = write(processChunk(chunk, seenCodes, seenEmails), output);
+                    created += chunkCreated;
+                    failed += chunk.size() - chunkCreated;
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                int chunkCreated = write(processChunk(chunk, seenCodes, seenEmails), output);
+                created += chunkCreated;
+                failed += chunk.size() - chunkCreated;
+            }
+        } catch (IllegalArgumentException e) {
+            // Unusable CSV header: nothing in the upload can be read
+            write(List.of(new BulkOnboardingResultDto(0, null, BulkOnboardingStatus.FAILED, null, e.getMessage())),
+                    output);
+        }
+        log.info("Bulk onboarding finished: {} created, {} failed", created, failed);
+    }
+
+    private List<BulkOnboardingResultDto> processChunk(List<ImportRow> rows, Set<String> seenCodes,
+                                                       Set<String> seenEmails) {
+        // Row number -> result, so output keeps input order whatever finishes first
+        Map<Integer, BulkOnboardingResultDto> results = new TreeMap<>();
+
+        List<ImportRow> candidates = new ArrayList<>();
+        for (ImportRow row : rows) {
+            String problem = row.error() != null ? row.error() : validate(row.employee(), seenCodes, seenEmails);
+            if (problem != null) {
+                results.put(row.rowNumber(), failed(row, problem));
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        rejectExisting(candidates, results);
+
+        if (!candidates.isEmpty() && !keycloakAdminHealthMonitor.isAvailable()) {
+            candidates.forEach(row -> results.put(row.rowNumber(), failed(row, KEYCLOAK_ADMIN_CONNECTION_FAILED)));
+            return new ArrayList<>(results.values());
+        }
+
+        List<ImportRow> inserted = insert(candidates, results);
+        provision(inserted, results);
+
+        return new ArrayList<>(results.values());
+    }
+
+    private String validate(EmployeeRequestDto employee, Set<String> seenCodes, Set<String> seenEmails) {
+        Set<ConstraintViolation<EmployeeRequestDto>> violations = validator.validate(employee);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!seenCodes.add(employee.getEmployeeCode().toLowerCase(Locale.ROOT))) {
+            return "Duplicate employeeCode in upload: " + employee.getEmployeeCode();
+        }
+        if (!seenEmails.add(employee.getEmail().toLowerCase(Locale.ROOT))) {
+            return "Duplicate email in upload: " + employee.getEmail();
+        }
+        return null;
+    }
+
+    // Two IN-list queries per chunk instead of two lookups per row
+    private void rejectExisting(List<ImportRow> candidates, Map<Integer, BulkOnboardingResultDto> results) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> existingCodes = employeeRepository.findAllById(
+                        candidates.stream().map(row -> row.employee().getEmployeeCode()).toList())
+                .stream()
+                .map(Employee::getEmployeeCode)
+                .collect(Collectors.toSet());
+        Set<String> existingEmails = employeeRepository.findByEmailIn(
+                        candidates.stream().map(row -> row.employee().getEmail()).toList())
+                .stream()
+                .map(Employee::getEmail)
+                .collect(Collectors.toSet());
+
+        candidates.removeIf(row -> {
+            String code = row.employee().getEmployeeCode();
+            String email = row.employee().getEmail();
+            String existing = existingCodes.contains(code) ? code : existingEmails.contains(email) ? email : null;
+            if (existing != null) {
+                results.put(row.rowNumber(), failed(row, String.format(EMPLOYEE_ALREADY_EXISTS, existing)));
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private List<ImportRow> insert(List<ImportRow> candidates, Map<Integer, BulkOnboardingResultDto> results) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        try {
+            // persist (not save) so assigned ids don't trigger a SELECT per row; inserts flush as JDBC batches
+            transactionTemplate.executeWithoutResult(status ->
+                    candidates.forEach(row -> entityManager.persist(toEmployee(row.employee()))));
+            return candidates;
+        } catch (RuntimeException e) {
+            // One bad row fails the whole batch; retry row by row to isolate it
+            log.warn("Batch insert of {} employee(s) failed, retrying individually: {}",
+                    candidates.size(), e.getMessage());
+            List<ImportRow> inserted = new ArrayList<>();
+            for (ImportRow row : candidates) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> entityManager.persist(toEmployee(row.employee())));
+                    inserted.add(row);
+                } catch (RuntimeException rowError) {
+                    results.put(row.rowNumber(), failed(row, EMPLOYEE_SAVE_FAILED));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private void provision(List<ImportRow> inserted, Map<Integer, BulkOnboardingResultDto> results) {
+        Map<ImportRow, CompletableFuture<Map<String, String>>> pending = new LinkedHashMap<>();
+        for (ImportRow row : inserted) {
+            pending.put(row, CompletableFuture.supplyAsync(
+                    () -> keycloakCreateUserService.provisionKeycloakUser(row.employee()), keycloakExecutor));
+        }
+
+        Map<ImportRow, Map<String, String>> provisioned = new LinkedHashMap<>();
+        List<String> unprovisionedCodes = new ArrayList<>();
+        pending.forEach((row, future) -> {
+            try {
+                provisioned.put(row, future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                results.put(row.rowNumber(), failed(row, cause.getMessage()));
+                unprovisionedCodes.add(row.employee().getEmployeeCode());
+            }
+        });
+
+        // Rows without a Keycloak user go in their own transaction, so a later failure can't keep them
+        deleteEmployees(unprovisionedCodes);
+
+        for (ImportRow row : link(provisioned, results)) {
+            results.put(row.rowNumber(), new BulkOnboardingResultDto(row.rowNumber(), row.employee().getEmployeeCode(),
+                    BulkOnboardingStatus.CREATED, provisioned.get(row).get("userId"), null));
+        }
+    }
+
+    /**
+     * Stores each Keycloak id and queues each welcome email, a row's link and email committing together. The chunk
+     * goes in one transaction; if that fails it is retried row by row, and a row that still fails is undone in both
+     * stores and reported FAILED, since its temporary password would otherwise never reach anyone.
+     */
+    private List<ImportRow> link(Map<ImportRow, Map<String, String>> provisioned,
+                                 Map<Integer, BulkOnboardingResultDto> results) {
+        if (provisioned.isEmpty()) {
+            return List.of();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> provisioned.forEach(this::linkRow));
+            return new ArrayList<>(provisioned.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Linking {} bulk-onboarded employee(s) failed, retrying individually: {}",
+                    provisioned.size(), e.getMessage());
+        }
+
+        List<ImportRow> linked = new ArrayList<>();
+        List<String> undoneCodes = new ArrayList<>();
+        provisioned.forEach((row, user) -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> linkRow(row, user));
+                linked.add(row);
+            } catch (RuntimeException rowError) {
+                log.error("Could not link Keycloak user / queue welcome email for {}",
+                        row.employee().getEmployeeCode(), rowError);
+                keycloakCreateUserService.removeKeycloakUser(row.employee().getEmployeeCode(), user.get("userId"));
+                undoneCodes.add(row.employee().getEmployeeCode());
+                results.put(row.rowNumber(), failed(row, WELCOME_EMAIL_QUEUE_FAILED));
+            }
+        });
+        deleteEmployees(undoneCodes);
+        return linked;
+    }
+
+    private void linkRow(ImportRow row, Map<String, String> user) {
+        employeeRepository.updateKeycloakUserId(row.employee().getEmployeeCode(), user.get("userId"));
+        keycloakCreateUserService.sendWelcomeEmail(row.employee(), user.get("temporaryPassword"));
+    }
+
+    private void deleteEmployees(List<String> employeeCodes) {
+        if (employeeCodes.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> employeeRepository.deleteAllByIdInBatch(employeeCodes));
+        } catch (RuntimeException e) {
+            // Left behind without a Keycloak user; they have to be removed by hand before a re-import
+            log.error("Could not remove unprovisioned employees {}", employeeCodes, e);
+        }
+    }
+
+    private int write(List<BulkOnboardingResultDto> results, OutputStream output) throws IOException {
+        int created = 0;
+        for (BulkOnboardingResultDto result : results) {
+            output.write(objectMapper.writeValueAsBytes(result));
+            output.write('\n');
+            if (result.getStatus() == BulkOnboardingStatus.CREATED) {
+                created++;
+            }
+        }
+        output.flush();
+        return created;
+    }
+
+    private static Employee toEmployee(EmployeeRequestDto dto) {
+        Employee employee = new Employee();
+        employee.setEmployeeCode(dto.getEmployeeCode());
+        employee.setFirstName(dto.getFirstName());
+        employee.setLastName(dto.getLastName());
+        employee.setEmail(dto.getEmail());
+        String employeeType = dto.getEmployeeType();
+        employee.setEmployeeType(employeeType == null || employeeType.isEmpty() ? DEFAULT_EMPLOYEE_TYPE : employeeType);
+        return employee;
+    }
+
+    private static BulkOnboardingResultDto failed(ImportRow row, String message) {
+        String employeeCode = row.employee() != null ? row.employee().getEmployeeCode() : null;
+        return new BulkOnboardingResultDto(row.rowNumber(), employeeCode, BulkOnboardingStatus.FAILED, null, message);
+    }
+
+    @Override
+    public void destroy() {
+        keycloakExecutor.shutdown();
+    }
+}
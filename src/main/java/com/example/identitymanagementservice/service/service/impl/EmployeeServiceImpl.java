@@ -1,9 +1,12 @@
 package com.example.identitymanagementservice.service.service.impl;
 
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
 import com.example.identitymanagementservice.repository.EmployeeRepository;
 import com.example.identitymanagementservice.service.EmployeeService;
 import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
+import com.example.identitymanagementservice.dto.request.UserBatchLookupRequest;
 import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import com.example.identitymanagementservice.dto.request.response.UserBatchLookupResponse;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
 import com.example.identitymanagementservice.model.Employee;
 import com.example.identitymanagementservice.utils.SortUtil;
@@ -11,25 +14,36 @@ import com.example.identitymanagementservice.common.constants.ErrorMessage;
 import com.example.identitymanagementservice.dto.request.pagenationdto.FilterRequest;
 import com.example.identitymanagementservice.dto.request.pagenationdto.SortRequest;
 import com.example.identitymanagementservice.dto.request.pagenationdto.response.PagedResponse;
+import com.example.identitymanagementservice.enums.TotalCountMode;
 import com.example.identitymanagementservice.utils.FilterSpecificationBuilder;
+import com.example.identitymanagementservice.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.ArrayList;
-
-
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorCode.VALIDATION_ERROR;
 import static com.example.identitymanagementservice.common.constants.ErrorMessage.USER_NOT_FOUND;
 
 
@@ -38,23 +52,17 @@ import static com.example.identitymanagementservice.common.constants.ErrorMessag
 @Slf4j
 public class EmployeeServiceImpl implements EmployeeService {
 
+    private static final String EMPLOYEE_CODE = "employeeCode";
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     private final EmployeeRepository employeeRepository;
+    private final EmployeeIdentityCache employeeIdentityCache;
+    private final ObjectMapper objectMapper;
 
     @Override
     public UserIdentityDto getUserByEmployeeCodedb(String employeeCode) {
-        Employee user = employeeRepository.findByEmployeeCodeAndIsActiveTrue(employeeCode)
+        return employeeIdentityCache.getByEmployeeCode(employeeCode)
                 .orElseThrow(() -> new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + employeeCode));
-
-        UserIdentityDto dto = new UserIdentityDto();
-        dto.setKeycloakUserId(user.getKeycloakUserId());
-        dto.setEmployeeCode(user.getEmployeeCode());
-        dto.setFirstName(user.getFirstName());
-        dto.setLastName(user.getLastName());
-        dto.setEmail(user.getEmail());
-        dto.setManagerCode(user.getManagerCode());
-        dto.setEmployeeType(user.getEmployeeType());
-
-        return dto;
     }
 
     public void updateActiveStatus(String employeeCode, boolean isActive) {
@@ -63,28 +71,79 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         employee.setActive(isActive);
         employeeRepository.save(employee);
+        employeeIdentityCache.evict(employee.getEmployeeCode(), employee.getKeycloakUserId());
     }
 
     @Override
     public UserIdentityDto getUserByKeycloakUserId(String keycloakUserId) {
-        Employee employee = employeeRepository.findByKeycloakUserIdAndIsActiveTrue(keycloakUserId)
+        return employeeIdentityCache.getByKeycloakUserId(keycloakUserId)
                 .orElseThrow(() -> new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + keycloakUserId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserBatchLookupResponse getUsersBatch(UserBatchLookupRequest request) {
+        Set<String> employeeCodes = distinctKeys(request.getEmployeeCodes());
+        Set<String> keycloakUserIds = distinctKeys(request.getKeycloakUserIds());
+        if (employeeCodes.isEmpty() && keycloakUserIds.isEmpty()) {
+            throw new TimesheetException(VALIDATION_ERROR, ErrorMessage.BATCH_LOOKUP_EMPTY);
+        }
 
-        UserIdentityDto dto = new UserIdentityDto();
-        dto.setEmployeeCode(employee.getEmployeeCode());
-        dto.setFirstName(employee.getFirstName());
-        dto.setLastName(employee.getLastName());
-        dto.setEmail(employee.getEmail());
-        dto.setEmployeeType(employee.getEmployeeType());
-        dto.setManagerCode(employee.getManagerCode());
-        return dto;
+        Map<String, UserIdentityDto> byEmployeeCode = new HashMap<>();
+        Map<String, UserIdentityDto> byKeycloakUserId = new HashMap<>();
+        for (UserIdentityDto identity : employeeRepository.findIdentitiesByEmployeeCodesOrKeycloakUserIds(
+                employeeCodes, keycloakUserIds)) {
+            byEmployeeCode.put(identity.getEmployeeCode(), identity);
+            if (identity.getKeycloakUserId() != null) {
+                byKeycloakUserId.put(identity.getKeycloakUserId(), identity);
+            }
+        }
+
+        // Keyed by employeeCode, so an employee requested under both keys is returned once
+        Map<String, UserIdentityDto> found = new LinkedHashMap<>();
+        List<String> missingEmployeeCodes = new ArrayList<>();
+        for (String employeeCode : employeeCodes) {
+            UserIdentityDto identity = byEmployeeCode.get(employeeCode);
+            if (identity == null) {
+                missingEmployeeCodes.add(employeeCode);
+            } else {
+                found.putIfAbsent(identity.getEmployeeCode(), identity);
+            }
+        }
+        List<String> missingKeycloakUserIds = new ArrayList<>();
+        for (String keycloakUserId : keycloakUserIds) {
+            UserIdentityDto identity = byKeycloakUserId.get(keycloakUserId);
+            if (identity == null) {
+                missingKeycloakUserIds.add(keycloakUserId);
+            } else {
+                found.putIfAbsent(identity.getEmployeeCode(), identity);
+            }
+        }
+
+        return UserBatchLookupResponse.builder()
+                .found(new ArrayList<>(found.values()))
+                .missingEmployeeCodes(missingEmployeeCodes)
+                .missingKeycloakUserIds(missingKeycloakUserIds)
+                .build();
+    }
+
+    // Request order, without blanks and repeats
+    private static Set<String> distinctKeys(List<String> keys) {
+        Set<String> distinct = new LinkedHashSet<>();
+        if (keys != null) {
+            keys.stream().filter(key -> key != null && !key.isBlank()).forEach(distinct::add);
+        }
+        return distinct;
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<UserResponseDto> getAllUsers(
             int offset,
             int limit,
+            String cursor,
+            TotalCountMode total,
             List<FilterRequest> filters,
             List<SortRequest> sorts) {
 
@@ -95,11 +154,8 @@ public class EmployeeServiceImpl implements EmployeeService {
             limit = 10;
         }
 
-        int page = offset / limit;
-
-        Sort sort = SortUtil.getSort(sorts);
-
-        Pageable pageable = PageRequest.of(page, limit, sort);
+        // employeeCode last gives a total order, which both stable offset pages and cursors rely on
+        Sort sort = KeysetCursor.withTiebreaker(SortUtil.getSort(sorts), EMPLOYEE_CODE);
 
         Specification<Employee> dynamicSpec = new FilterSpecificationBuilder<Employee>().build(filters);
 
@@ -108,80 +164,130 @@ public class EmployeeServiceImpl implements EmployeeService {
 
         Specification<Employee> finalSpec = Specification.where(isActiveSpec).and(dynamicSpec);
 
-        Page<Employee> employeePage = employeeRepository.findAll(finalSpec, pageable);
+        if (cursor != null && !cursor.isBlank()) {
+            // Cursor pages are not counted unless asked for
+            PagedResponse<UserResponseDto> response = getUsersAfterCursor(cursor, limit, sort, finalSpec);
+            applyTotal(response, total != null ? total : TotalCountMode.NONE, finalSpec, filters);
+            return response;
+        }
+
+        int page = offset / limit;
+
+        // Search ranking is an order a cursor can't encode
+        boolean ranked = FilterSpecificationBuilder.hasSearch(filters);
+        PagedResponse<UserResponseDto> response = getOffsetPage(page, limit, sort, finalSpec, !ranked);
+        applyTotal(response, total != null ? total : TotalCountMode.EXACT, finalSpec, filters);
+        return response;
+    }
 
-        if (employeePage.isEmpty()) {
+    private PagedResponse<UserResponseDto> getOffsetPage(int page, int limit, Sort sort,
+                                                         Specification<Employee> spec, boolean withCursor) {
+        // One extra row tells whether another page exists; counting is left to applyTotal
+        List<UserResponseDto> rows = employeeRepository.findUserSlice(spec, sort, (long) page * limit, limit + 1);
+
+        if (rows.isEmpty()) {
             throw new TimesheetException(
                     NOT_FOUND_ERROR,
                     ErrorMessage.NO_ACTIVE_USERS_FOUND
             );
         }
 
-        List<UserResponseDto> content = employeePage.getContent().stream()
-                .map(emp -> new UserResponseDto(
-                        emp.getEmployeeCode(),
-                        emp.getFirstName(),
-                        emp.getLastName(),
-                        emp.getEmail(),
-                        emp.getManagerCode(),
-                        emp.getEmployeeType()
-                ))
-                .toList();
-
-        return new PagedResponse<>(
-                content,
-                employeePage.getNumber(),
-                employeePage.getSize(),
-                employeePage.getTotalElements()
-        );
-    }
-
+        boolean hasNext = rows.size() > limit;
+        List<UserResponseDto> content = hasNext ? rows.subList(0, limit) : rows;
 
-    @Override
-    public List<Map<String, String>> getAllUsersList() {
-        List<Employee> employees = employeeRepository.findAllByIsActiveTrue();
-        List<Map<String, String>> userList = new ArrayList<>();
-
-        for (Employee employee : employees) {
-            Map<String, String> userMap = new HashMap<>();
-            userMap.put("employeeCode", employee.getEmployeeCode());
-            userMap.put("firstName", employee.getFirstName());
-            userMap.put("lastName", employee.getLastName());
-            userMap.put("email", employee.getEmail());
-            userMap.put("managerCode", employee.getManagerCode());
-            userMap.put("employeeType", employee.getEmployeeType());
-            userList.add(userMap);
+        PagedResponse<UserResponseDto> response = PagedResponse.slice(content, page, limit, hasNext);
+        // Lets a client switch to cursor paging after an offset page
+        if (withCursor && hasNext && KeysetCursor.supports(sort)) {
+            response.setNextCursor(KeysetCursor.encode(sort, content.get(content.size() - 1)));
         }
+        return response;
+    }
 
-        return userList;
+    private void applyTotal(PagedResponse<UserResponseDto> response, TotalCountMode total,
+                            Specification<Employee> spec, List<FilterRequest> filters) {
+        if (total == TotalCountMode.EXACT) {
+            boolean offsetPage = response.getPage() != null;
+            // The last offset page already knows the total, as findAll(spec, pageable) would
+            long count = offsetPage && response.isLast()
+                    ? (long) response.getPage() * response.getSize() + response.getContent().size()
+                    : employeeRepository.count(spec);
+            response.setTotalElements(count);
+            if (offsetPage) {
+                response.setTotalPages((int) Math.ceil((double) count / response.getSize()));
+            }
+        } else if (total == TotalCountMode.APPROXIMATE && (filters == null || filters.isEmpty())) {
+            // Table statistics know nothing about filters, so a filtered listing gets no total rather than a
+            // misleading one. The estimate also includes inactive rows; it is a size hint, not a count.
+            long estimate = employeeRepository.estimateRowCount();
+            if (estimate >= 0) {
+                response.setTotalElements(estimate);
+                response.setTotalApproximate(true);
+            }
+        }
     }
 
+    private PagedResponse<UserResponseDto> getUsersAfterCursor(String cursor, int limit, Sort sort,
+                                                               Specification<Employee> spec) {
+        if (!KeysetCursor.supports(sort)) {
+            throw new TimesheetException(VALIDATION_ERROR,
+                    "Cursor pagination only supports sorting by " + KeysetCursor.SORT_FIELDS);
+        }
+        Specification<Employee> afterCursor = spec.and(KeysetCursor.after(sort, KeysetCursor.decode(cursor, sort)));
+        // Keyset order only: search ranking would break the seek
+        Specification<Employee> seekSpec = (root, query, cb) -> {
+            Predicate predicate = afterCursor.toPredicate(root, query, cb);
+            query.orderBy(List.of());
+            return predicate;
+        };
+
+        // One extra row tells whether another page exists, without a COUNT
+        List<UserResponseDto> rows = employeeRepository.findUserSlice(seekSpec, sort, 0, limit + 1);
+
+        if (rows.isEmpty()) {
+            throw new TimesheetException(
+                    NOT_FOUND_ERROR,
+                    ErrorMessage.NO_ACTIVE_USERS_FOUND
+            );
+        }
 
+        boolean hasNext = rows.size() > limit;
+        List<UserResponseDto> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? KeysetCursor.encode(sort, content.get(content.size() - 1)) : null;
+        return PagedResponse.cursorPage(content, limit, nextCursor);
+    }
 
 
     @Override
-    public List<UserIdentityDto> getActiveEmployeesUnderManager(String managerCode) {
-        List<Employee> employees = employeeRepository.findByManagerCodeAndIsActiveTrue(managerCode);
-        return mapToUserIdentityDtos(employees);
-    }
-
-    private List<UserIdentityDto> mapToUserIdentityDtos(List<Employee> employees) {
-        return employees.stream()
-                .map(this::mapToUserIdentityDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void exportAllUsers(OutputStream output, boolean ndjson) throws IOException {
+        // Rows are written as the cursor is read, so nothing is held beyond the current fetch batch
+        ObjectWriter writer = objectMapper.writerFor(UserResponseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try (Stream<UserResponseDto> users = employeeRepository.streamAllActiveUsers();
+             SequenceWriter sequence = ndjson
+                     ? writer.withRootValueSeparator("\n").writeValues(output)
+                     : writer.writeValuesAsArray(output)) {
+            Iterator<UserResponseDto> rows = users.iterator();
+            int written = 0;
+            while (rows.hasNext()) {
+                sequence.write(rows.next());
+                if (++written % EXPORT_FLUSH_ROWS == 0) {
+                    sequence.flush();
+                }
+            }
+            if (ndjson && written > 0) {
+                sequence.flush();
+                output.write('\n');
+            }
+        }
+        output.flush();
     }
 
-    private UserIdentityDto mapToUserIdentityDto(Employee employee) {
-        return UserIdentityDto.builder()
-                .keycloakUserId(employee.getKeycloakUserId())
-                .employeeCode(employee.getEmployeeCode())
-                .firstName(employee.getFirstName())
-                .lastName(employee.getLastName())
-                .email(employee.getEmail())
-                .employeeType(employee.getEmployeeType())
-                .managerCode(employee.getManagerCode())
-                .build();
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserIdentityDto> getActiveEmployeesUnderManager(String managerCode) {
+        return employeeRepository.findIdentitiesByManagerCode(managerCode);
     }
-
-
 }
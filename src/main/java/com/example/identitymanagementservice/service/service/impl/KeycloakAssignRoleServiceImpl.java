@@ -5,21 +5,26 @@ import com.example.identitymanagementservice.exceptions.TimesheetException;
 import com.example.identitymanagementservice.service.KeycloakAssignRoleService;
 import com.example.identitymanagementservice.model.Employee;
 import com.example.identitymanagementservice.common.constants.ErrorCode;
+import com.example.identitymanagementservice.common.keycloak.KeycloakUserIdResolver;
+import com.example.identitymanagementservice.common.keycloak.RoleMembershipIndex;
+import com.example.identitymanagementservice.common.keycloak.RoleMembershipIndex.RoleMember;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.representations.idm.RoleRepresentation;
-import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
 
 import java.util.List;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.example.identitymanagementservice.common.constants.ErrorCode.CONFLICT_ERROR;
@@ -37,8 +42,12 @@ import static com.example.identitymanagementservice.common.constants.ErrorCode.R
 @Slf4j
 public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService {
 
+    private static final int ACTIVE_LOOKUP_CHUNK_SIZE = 1000;
+
     private final Keycloak keycloakAdmin;
     private final EmployeeRepository employeeRepository;
+    private final RoleMembershipIndex roleMembershipIndex;
+    private final KeycloakUserIdResolver keycloakUserIdResolver;
 
     @Value("${keycloak.realm}")
     private String realm;
@@ -46,18 +55,9 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
     public void assignRealmRoles(String employeeCode, List<String> roles) {
         RealmResource realmResource = keycloakAdmin.realm(realm);
 
-        // Search for user by employeeCode
-        List<UserRepresentation> users = realmResource.users().search(employeeCode);
-        if (users.isEmpty()) {
-            throw new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + " " + employeeCode);
-        }
-
-        // Assuming employeeCode is unique, use the first user found
-        UserRepresentation userRepresentation = users.get(0);
-        String userId = userRepresentation.getId();
+        String userId = keycloakUserIdResolver.resolve(employeeCode);
         UserResource userResource = realmResource.users().get(userId);
 
-
         // Get currently assigned roles
         List<String> alreadyAssignedRoles = userResource.roles().realmLevel().listEffective().stream()
                 .map(RoleRepresentation::getName)
@@ -80,6 +80,7 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
         // Get the UserResource and assign roles
         try {
             userResource.roles().realmLevel().add(roleRepresentations);
+            roleMembershipIndex.onRolesAssigned(userId, employeeCode, roles);
             log.info("Assigned roles {} to user {}", roles, employeeCode);
         } catch (Exception e) {
             throw new TimesheetException(NOT_FOUND_ERROR, ROLE_ASSIGNMENT_FAILED + employeeCode);
@@ -88,18 +89,14 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
     }
 
     public List<String> getAssignedRealmRoles(String employeeCode) {
-        RealmResource realmResource = keycloakAdmin.realm(realm);
-
-        // Find user by employeeCode
-        List<UserRepresentation> users = realmResource.users().search(employeeCode, true);
-        if (users.isEmpty()) {
-            throw new TimesheetException(
-                    NOT_FOUND_ERROR,
-                    USER_NOT_FOUND + employeeCode
-            );
+        Optional<Set<String>> indexedRoles = roleMembershipIndex.rolesOf(employeeCode);
+        if (indexedRoles.isPresent()) {
+            return new ArrayList<>(indexedRoles.get());
         }
 
-        String userId = users.get(0).getId();
+        RealmResource realmResource = keycloakAdmin.realm(realm);
+
+        String userId = keycloakUserIdResolver.resolve(employeeCode);
 
         // Get realm-level roles assigned to the user
         List<RoleRepresentation> realmRoles = realmResource.users()
@@ -120,15 +117,7 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
     public void unassignRealmRoles(String employeeCode, List<String> roles) {
         RealmResource realmResource = keycloakAdmin.realm(realm);
 
-        // Search for user by employeeCode
-        List<UserRepresentation> users = realmResource.users().search(employeeCode);
-        if (users.isEmpty()) {
-            throw new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + " " + employeeCode);
-        }
-
-        // Use first user found (assuming employeeCode is unique)
-        UserRepresentation userRepresentation = users.get(0);
-        String userId = userRepresentation.getId();
+        String userId = keycloakUserIdResolver.resolve(employeeCode);
         UserResource userResource = realmResource.users().get(userId);
 
         // Get currently assigned roles
@@ -152,6 +141,7 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
 
         try {
             userResource.roles().realmLevel().remove(rolesToUnassign);
+            roleMembershipIndex.onRolesRemoved(userId, roles);
             log.info("Unassigned roles {} from user {}", roles, employeeCode);
         } catch (Exception e) {
             throw new TimesheetException(ErrorCode.NOT_FOUND_ERROR, ROLE_NOT_FOUND + employeeCode);
@@ -162,42 +152,30 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
 
 
     public Map<String, String> getUsersByRoles(List<String> roleNames) {
+        if (roleNames == null || roleNames.isEmpty()) {
+            throw new TimesheetException(NOT_FOUND_ERROR, ROLE_NOT_FOUND + roleNames);
+        }
 
         try {
-            RealmResource realmResource = keycloakAdmin.realm(realm);
-            List<UserRepresentation> allUsers = realmResource.users().list();
-
+            // Start from the smallest role so the intersection only ever shrinks
+            List<Map<String, RoleMember>> memberships = roleNames.stream()
+                    .distinct()
+                    .map(roleMembershipIndex::membersOf)
+                    .sorted(Comparator.comparingInt(Map::size))
+                    .toList();
+
+            Map<String, RoleMember> candidates = new HashMap<>(memberships.get(0));
+            for (Map<String, RoleMember> members : memberships.subList(1, memberships.size())) {
+                candidates.keySet().retainAll(members.keySet());
+            }
 
-            Map<String, Employee> activeEmployees =
-                    employeeRepository.findAllByIsActiveTrue()
-                            .stream()
-                            .filter(e -> e.getKeycloakUserId() != null)
-                            .collect(Collectors.toMap(Employee::getKeycloakUserId,
-                                    Function.identity()));
+            // Skip users that are not active in the DB
+            Set<String> activeUserIds = activeUserIdsAmong(new ArrayList<>(candidates.keySet()));
 
             Map<String, String> matchedUsers = new HashMap<>();
-
-            for (UserRepresentation user : allUsers) {
-
-                // Skip if the user is not active in the DB
-                if (!activeEmployees.containsKey(user.getId())) {
-                    continue;
-                }
-
-                List<String> userRoleNames = realmResource.users()
-                        .get(user.getId())
-                        .roles()
-                        .realmLevel()
-                        .listEffective()
-                        .stream()
-                        .map(RoleRepresentation::getName)
-                        .toList();
-
-                boolean hasAllRoles = roleNames.stream()
-                        .allMatch(userRoleNames::contains);
-
-                if (hasAllRoles) {
-                    matchedUsers.put(user.getUsername(), user.getFirstName());
+            for (RoleMember member : candidates.values()) {
+                if (activeUserIds.contains(member.userId())) {
+                    matchedUsers.put(member.username(), member.firstName());
                 }
             }
 
@@ -216,17 +194,21 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
         }
     }
 
+    // Looks up only the candidates, in chunks that stay well under Postgres' bind parameter limit
+    private Set<String> activeUserIdsAmong(List<String> userIds) {
+        Set<String> active = new HashSet<>();
+        for (int from = 0; from < userIds.size(); from += ACTIVE_LOOKUP_CHUNK_SIZE) {
+            active.addAll(employeeRepository.findActiveKeycloakUserIdsIn(
+                    userIds.subList(from, Math.min(from + ACTIVE_LOOKUP_CHUNK_SIZE, userIds.size()))));
+        }
+        return active;
+    }
+
 
     public void updateUserRoles(String employeeCode, List<String> rolesToAssign, List<String> rolesToRemove) {
         RealmResource realmResource = keycloakAdmin.realm(realm);
 
-        List<UserRepresentation> users = realmResource.users().search(employeeCode);
-        if (users.isEmpty()) {
-            throw new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + " " + employeeCode);
-        }
-
-        UserRepresentation userRepresentation = users.get(0);
-        String userId = userRepresentation.getId();
+        String userId = keycloakUserIdResolver.resolve(employeeCode);
         UserResource userResource = realmResource.users().get(userId);
 
         try {
@@ -238,6 +220,7 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
                     assignRoles.add(role);
                 }
                 userResource.roles().realmLevel().add(assignRoles);
+                roleMembershipIndex.onRolesAssigned(userId, employeeCode, rolesToAssign);
                 log.info("Assigned roles {} to user {}", rolesToAssign, employeeCode);
             }
 
@@ -248,6 +231,7 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
                     removeRoles.add(role);
                 }
                 userResource.roles().realmLevel().remove(removeRoles);
+                roleMembershipIndex.onRolesRemoved(userId, rolesToRemove);
                 log.info("Removed roles {} from user {}", rolesToRemove, employeeCode);
             }
 
@@ -260,14 +244,14 @@ public class KeycloakAssignRoleServiceImpl implements KeycloakAssignRoleService
 
 
     public boolean hasManagerRole(String employeeCode, String role) {
-        RealmResource realmResource = keycloakAdmin.realm(realm);
-
-        List<UserRepresentation> users = realmResource.users().search(employeeCode);
-        if (users.isEmpty()) {
-            throw new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + " " + employeeCode);
+        Optional<Set<String>> indexedRoles = roleMembershipIndex.rolesOf(employeeCode);
+        if (indexedRoles.isPresent()) {
+            return indexedRoles.get().contains(role);
         }
 
-        String userId = users.get(0).getId();
+        RealmResource realmResource = keycloakAdmin.realm(realm);
+
+        String userId = keycloakUserIdResolver.resolve(employeeCode);
 
         List<String> assignedRoles = realmResource.users()
                 .get(userId)
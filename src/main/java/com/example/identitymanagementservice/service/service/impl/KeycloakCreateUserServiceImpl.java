@@ -6,10 +6,14 @@ import com.example.identitymanagementservice.repository.EmployeeRepository;
 import com.example.identitymanagementservice.dto.request.EmployeeRequestDto;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
 import com.example.identitymanagementservice.model.Employee;
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
 import com.example.identitymanagementservice.common.constants.ErrorCode;
 import com.example.identitymanagementservice.common.constants.ErrorMessage;
 import com.example.identitymanagementservice.common.constants.MessageConstants;
-import com.example.identitymanagementservice.common.email.service.EmailService;
+import com.example.identitymanagementservice.common.email.service.EmailOutboxService;
+import com.example.identitymanagementservice.common.keycloak.KeycloakAdminHealthMonitor;
+import com.example.identitymanagementservice.common.keycloak.KeycloakUserIdResolver;
+import com.example.identitymanagementservice.common.keycloak.RoleMembershipIndex;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
@@ -56,8 +60,12 @@ import static com.example.identitymanagementservice.common.constants.ErrorMessag
 public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService {
 
     private final Keycloak keycloakAdmin;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
     private final EmployeeRepository employeeRepository;
+    private final KeycloakUserIdResolver keycloakUserIdResolver;
+    private final KeycloakAdminHealthMonitor keycloakAdminHealthMonitor;
+    private final EmployeeIdentityCache employeeIdentityCache;
+    private final RoleMembershipIndex roleMembershipIndex;
 
 
 
@@ -69,6 +77,11 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
         String userId = null;
         String randomPassword = null;
 
+        // Fail fast before touching the DB when the background probe reports Keycloak down
+        if (!keycloakAdminHealthMonitor.isAvailable()) {
+            throw new TimesheetException(ErrorCode.SERVICE_UNAVAILABLE_ERROR, KEYCLOAK_ADMIN_CONNECTION_FAILED);
+        }
+
         try {
             // Check if email already exists
             Optional<Employee> existingEmail = employeeRepository.findByEmailAndIsActiveTrue(employee.getEmail());
@@ -96,8 +109,45 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
 
             Employee savedEmployee = employeeRepository.save(newEmployee);
 
-            // Connect to Keycloak
-            verifyAdminConnection();
+            Map<String, String> provisioned = provisionKeycloakUser(employee);
+            userId = provisioned.get("userId");
+            randomPassword = provisioned.get("temporaryPassword");
+
+            // Update employee with Keycloak userId
+            savedEmployee.setKeycloakUserId(userId);
+            employeeRepository.save(savedEmployee);
+            employeeIdentityCache.evict(savedEmployee.getEmployeeCode(), userId);
+
+            sendWelcomeEmail(employee, randomPassword);
+
+            Map<String, String> result = new HashMap<>();
+            result.put("userId", userId);
+            result.put("temporaryPassword", randomPassword);
+            return result;
+
+        } catch (Exception e) {
+            if (userId != null) {
+                removeKeycloakUser(employee.getEmployeeCode(), userId);
+            }
+            if (e instanceof TimesheetException) {
+                throw e;
+            } else if (e instanceof IllegalArgumentException) {
+                throw e;
+            } else {
+                throw new TimesheetException(KEYCLOAK_USER_CREATION_FAILED, "User creation failed", e);
+            }
+        }
+    }
+
+    /**
+     * Creates the Keycloak user with a temporary password and the Employee role and returns its userId and
+     * temporaryPassword. If a step after the create fails, the Keycloak user is removed again before rethrowing, so
+     * callers only have to undo their own DB work.
+     */
+    @Override
+    public Map<String, String> provisionKeycloakUser(EmployeeRequestDto employee) {
+        String userId = null;
+        try {
             RealmResource realmResource = keycloakAdmin.realm(realm);
 
             // Check if user exists in Keycloak
@@ -110,9 +160,11 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
             handleCreateUserResponse(response);
 
             userId = extractUserIdFromResponse(response);
+            // An id cached for an earlier user with this username is gone now
+            keycloakUserIdResolver.evict(employee.getEmployeeCode());
 
             // Set random temporary password
-            randomPassword = generateRandomPassword();
+            String randomPassword = generateRandomPassword();
             CredentialRepresentation passwordCred = new CredentialRepresentation();
             passwordCred.setTemporary(true);
             passwordCred.setType(CredentialRepresentation.PASSWORD);
@@ -121,83 +173,68 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
 
             RoleRepresentation employeeRole = realmResource.roles().get("Employee").toRepresentation();
             realmResource.users().get(userId).roles().realmLevel().add(Collections.singletonList(employeeRole));
-
-            // Update employee with Keycloak userId
-            savedEmployee.setKeycloakUserId(userId);
-            employeeRepository.save(savedEmployee);
-
-            // Send  email
-            Map<String, String> variables = new HashMap<>();
-            variables.put("firstName", employee.getFirstName());
-            variables.put("username", employee.getEmployeeCode());
-            variables.put("password", randomPassword);
-
-            String emailSubject = MessageConstants.CREATION_EMAIL;
-            String emailBody = emailService.loadTemplate("UserCreationTemplate.txt", variables);
-            emailService.sendEmail(employee.getEmail(), emailSubject, emailBody);
+            roleMembershipIndex.onRolesAssigned(userId, employee.getEmployeeCode(), List.of(employeeRole.getName()));
 
             Map<String, String> result = new HashMap<>();
             result.put("userId", userId);
             result.put("temporaryPassword", randomPassword);
             return result;
 
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             if (userId != null) {
-                try {
-                    keycloakAdmin.realm(realm).users().get(userId).remove();
-                    log.info("Rolled back Keycloak user creation for userId={}", userId);
-                } catch (Exception ex) {
-                    log.error("Failed to rollback Keycloak user", ex);
-                }
-            }
-            if (e instanceof TimesheetException) {
-                throw e;
-            } else if (e instanceof IllegalArgumentException) {
-                throw e;
-            } else {
-                throw new TimesheetException(KEYCLOAK_USER_CREATION_FAILED, "User creation failed", e);
+                removeKeycloakUser(employee.getEmployeeCode(), userId);
             }
+            throw e;
         }
     }
 
-    private String generateRandomPassword() {
-        return UUID.randomUUID().toString().substring(0, 8); // 8 chars random password
+    @Override
+    public void sendWelcomeEmail(EmployeeRequestDto employee, String temporaryPassword) {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("firstName", employee.getFirstName());
+        variables.put("username", employee.getEmployeeCode());
+        variables.put("password", temporaryPassword);
+
+        String emailSubject = MessageConstants.CREATION_EMAIL;
+        // Rendered by the outbox dispatcher after the surrounding transaction commits; SES sends it as a bulk template
+        emailOutboxService.enqueueTemplate(employee.getEmail(), emailSubject, "UserCreationTemplate.txt", variables);
     }
 
-
-    private void verifyAdminConnection() {
+    /**
+     * Best-effort delete of a Keycloak user we just created; failures are logged, not thrown.
+     */
+    @Override
+    public void removeKeycloakUser(String employeeCode, String userId) {
         try {
-            keycloakAdmin.realms().findAll();
-        } catch (Exception e) {
-            throw new TimesheetException(
-                    ErrorCode.KEYCLOAK_CONNECTION_ERROR,
-                    KEYCLOAK_ADMIN_CONNECTION_FAILED,
-                    e
-            );
+            keycloakAdmin.realm(realm).users().get(userId).remove();
+            log.info("Rolled back Keycloak user creation for userId={}", userId);
+        } catch (Exception ex) {
+            log.error("Failed to rollback Keycloak user", ex);
         }
+        keycloakUserIdResolver.evict(employeeCode);
+    }
+
+    private String generateRandomPassword() {
+        return UUID.randomUUID().toString().substring(0, 8); // 8 chars random password
     }
 
+
     private void checkExistingUser(String email, String employeeCode, RealmResource realmResource) {
-        // Check for existing user by employeeCode
-        List<UserRepresentation> usersByemployeeCode = realmResource.users().search(employeeCode, 0, 1, true);
-        for (UserRepresentation user : usersByemployeeCode) {
-            if (user.getUsername().equalsIgnoreCase(employeeCode)) {
-                throw new TimesheetException(
-                        ErrorCode.CONFLICT_ERROR,
-                        String.format(KEYCLOAK_USER_ALREADY_EXISTS, employeeCode)
-                );
-            }
+        // Exact, indexed lookups: cost does not grow with realm size and nothing is cut off by paging
+        UsersResource usersResource = realmResource.users();
+
+        if (!usersResource.searchByUsername(employeeCode, true).isEmpty()) {
+            throw new TimesheetException(
+                    ErrorCode.CONFLICT_ERROR,
+                    KEYCLOAK_USER_ALREADY_EXISTS + employeeCode
+            );
         }
 
-        // Check for existing user by email
-        List<UserRepresentation> allUsers = realmResource.users().list(); // optionally paginate for performance
-        for (UserRepresentation user : allUsers) {
-            if (user.getEmail() != null && user.getEmail().equalsIgnoreCase(email)) {
-                throw new TimesheetException(
-                        ErrorCode.CONFLICT_ERROR,
-                        String.format(KEYCLOAK_USER_ALREADY_EXISTS, email)
-                );
-            }
+        if (!usersResource.searchByEmail(email, true).isEmpty()) {
+            throw new TimesheetException(
+                    ErrorCode.CONFLICT_ERROR,
+                    KEYCLOAK_USER_ALREADY_EXISTS + email
+            );
         }
     }
 
@@ -314,22 +351,20 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
         }
 
         employeeRepository.save(employee);
+        employeeIdentityCache.evict(employee.getEmployeeCode(), keycloakUserId);
     }
 
     @Override
     @Transactional
     public void updateUserProfile(String employeeCode, EmployeeRequestDto dto) {
         try {
-            // Step 1: Find user by employeeCode (to get Keycloak ID)
-            var user = getUserByemployeeCodekc(employeeCode);
-            if (user == null) {
-                throw new TimesheetException(NOT_FOUND_ERROR, ErrorMessage.USER_NOT_FOUND);
-            }
+            // Step 1: Resolve the Keycloak ID from the employee record
+            String keycloakUserId = keycloakUserIdResolver.resolve(employeeCode);
 
             // Step 2: Update Keycloak
             RealmResource realmResource = keycloakAdmin.realm(realm);
             UsersResource usersResource = realmResource.users();
-            UserRepresentation userRep = usersResource.get(user.getId()).toRepresentation();
+            UserRepresentation userRep = usersResource.get(keycloakUserId).toRepresentation();
 
             if (dto.getFirstName() != null){
                 userRep.setFirstName(dto.getFirstName());
@@ -350,7 +385,7 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
             }
             userRep.setAttributes(attributes);
 
-            usersResource.get(user.getId()).update(userRep); // If this fails, DB is untouched
+            usersResource.get(keycloakUserId).update(userRep); // If this fails, DB is untouched
 
             // Step 3: Update DB
             Employee employee = employeeRepository.findByEmployeeCodeAndIsActiveTrue(employeeCode)
@@ -370,6 +405,7 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
             }
 
             employeeRepository.save(employee); // This is within @Transactional
+            employeeIdentityCache.evict(employeeCode, employee.getKeycloakUserId());
 
         } catch (Exception e) {
             log.error("Error updating user profile (Keycloak or DB)", e);
@@ -419,12 +455,7 @@ public class KeycloakCreateUserServiceImpl implements KeycloakCreateUserService
 
 
     public UserRepresentation getUserByemployeeCodekc(String employeeCode) {
-        RealmResource realmResource = keycloakAdmin.realm(realm);
-        List<UserRepresentation> users = realmResource.users().search(employeeCode, true);
-        return users.stream()
-                .filter(u -> u.getUsername().equalsIgnoreCase(employeeCode))
-                .findFirst()
-                .orElseThrow(() -> new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + employeeCode));
+        return getUserById(keycloakUserIdResolver.resolve(employeeCode));
     }
 
 
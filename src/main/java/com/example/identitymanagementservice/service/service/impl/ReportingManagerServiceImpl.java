@@ -1,5 +1,7 @@
 package com.example.identitymanagementservice.service.service.impl;
 
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
+import com.example.identitymanagementservice.dto.request.response.HierarchyMemberDto;
 import com.example.identitymanagementservice.repository.EmployeeRepository;
 import com.example.identitymanagementservice.service.ReportingManagerService;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
@@ -8,11 +10,16 @@ import com.example.identitymanagementservice.common.constants.MessageConstants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Map;
 import java.util.List;
 
+import static com.example.identitymanagementservice.common.constants.ErrorCode.CONFLICT_ERROR;
 import static com.example.identitymanagementservice.common.constants.ErrorCode.FORBIDDEN_ERROR;
 import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorCode.VALIDATION_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.INVALID_HIERARCHY_DEPTH;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.REPORTING_CYCLE;
 import static com.example.identitymanagementservice.common.constants.ErrorMessage.ROLE_NOT_FOUND;
 import static com.example.identitymanagementservice.common.constants.ErrorMessage.USER_NOT_FOUND;
 import static com.example.identitymanagementservice.common.constants.ErrorMessage.REPORTING_MANAGER_ASSIGN_FAILED;
@@ -28,9 +35,11 @@ import static com.example.identitymanagementservice.common.constants.ErrorMessag
 public class ReportingManagerServiceImpl implements ReportingManagerService {
 
     private final EmployeeRepository employeeRepository;
+    private final EmployeeIdentityCache employeeIdentityCache;
     private final KeycloakAssignRoleServiceImpl keycloakAssignRoleService;
 
     @Override
+    @Transactional
     public String addReportingManagerToEmployee(String employeeCode, String managerCode) {
         boolean isReportingManager = checkIfManagerHasRole(managerCode, "ReportingManager");
 
@@ -41,8 +50,15 @@ public class ReportingManagerServiceImpl implements ReportingManagerService {
         Employee employee = employeeRepository.findByEmployeeCodeAndIsActiveTrue(employeeCode)
                 .orElseThrow(() -> new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + employeeCode));
 
+        // Held until commit, so the check below can't race another assignment
+        employeeRepository.lockHierarchy();
+        if (employeeRepository.isInManagerChain(managerCode, employeeCode)) {
+            throw new TimesheetException(CONFLICT_ERROR, String.format(REPORTING_CYCLE, managerCode, employeeCode));
+        }
+
         employee.setManagerCode(managerCode);
         Employee savedEmployee = employeeRepository.save(employee);
+        employeeIdentityCache.evict(employeeCode, savedEmployee.getKeycloakUserId());
 
         return savedEmployee.getEmployeeCode() != null
                 ? REPORTING_MANAGER_ASSIGNED
@@ -66,6 +82,24 @@ public class ReportingManagerServiceImpl implements ReportingManagerService {
         return manager.getFirstName() + " " + manager.getLastName();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<HierarchyMemberDto> getReportingTree(String managerCode, Integer maxDepth) {
+        if (maxDepth != null && maxDepth < 1) {
+            throw new TimesheetException(VALIDATION_ERROR, INVALID_HIERARCHY_DEPTH);
+        }
+        return employeeRepository.findReports(managerCode, maxDepth != null ? maxDepth : Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<HierarchyMemberDto> getManagerChain(String employeeCode) {
+        // Cached lookup, so an unknown code is a 404 rather than an empty chain
+        employeeIdentityCache.getByEmployeeCode(employeeCode)
+                .orElseThrow(() -> new TimesheetException(NOT_FOUND_ERROR, USER_NOT_FOUND + employeeCode));
+        return employeeRepository.findManagerChain(employeeCode);
+    }
+
     private boolean checkIfManagerHasRole(String managerCode, String role) {
         try {
             Map<String, String> usersWithRole = keycloakAssignRoleService.getUsersByRoles(List.of(role));
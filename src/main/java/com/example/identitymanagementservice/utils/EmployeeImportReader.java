@@ -0,0 +1,132 @@
+package com.example.identitymanagementservice.utils;
+
+import com.example.identitymanagementservice.dto.request.EmployeeRequestDto;
+import com.example.identitymanagementservice.enums.BulkImportFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a bulk onboarding upload one line at a time, so only the current line is ever held in memory.
+ * A malformed line becomes a row carrying an error instead of aborting the whole upload.
+ */
+public class EmployeeImportReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("employeecode", "email", "firstname", "lastname");
+
+    private final BufferedReader reader;
+    private final BulkImportFormat format;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, Integer> csvColumns;
+    private int rowNumber;
+
+    public EmployeeImportReader(BufferedReader reader, BulkImportFormat format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the next data row, or null at the end of the input. Blank lines are skipped and not counted.
+     */
+    public ImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        if (format == BulkImportFormat.CSV && csvColumns == null) {
+            csvColumns = readHeader(line);
+            return next();
+        }
+
+        rowNumber++;
+        return format == BulkImportFormat.NDJSON ? parseJson(line) : parseCsv(line);
+    }
+
+    private ImportRow parseJson(String line) {
+        try {
+            return new ImportRow(rowNumber, objectMapper.readValue(line, EmployeeRequestDto.class), null);
+        } catch (JsonProcessingException e) {
+            return new ImportRow(rowNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private ImportRow parseCsv(String line) {
+        List<String> fields = splitCsvLine(line);
+        EmployeeRequestDto employee = new EmployeeRequestDto();
+        employee.setEmployeeCode(field(fields, "employeecode"));
+        employee.setEmail(field(fields, "email"));
+        employee.setFirstName(field(fields, "firstname"));
+        employee.setLastName(field(fields, "lastname"));
+        employee.setEmployeeType(field(fields, "employeetype"));
+        return new ImportRow(rowNumber, employee, null);
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = csvColumns.get(column);
+        if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static Map<String, Integer> readHeader(String line) {
+        // Strip a UTF-8 byte order mark left by spreadsheet exports
+        String header = line.charAt(0) == '\uFEFF' ? line.substring(1) : line;
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !columns.containsKey(c)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing column(s): " + missing);
+        }
+        return columns;
+    }
+
+    // RFC 4180 quoting within a single line: "a, b" is one field and "" is an escaped quote
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString().trim());
+        return fields;
+    }
+
+    public record ImportRow(int rowNumber, EmployeeRequestDto employee, String error) {
+    }
+}
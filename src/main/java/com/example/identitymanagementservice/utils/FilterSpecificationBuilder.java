@@ -1,6 +1,9 @@
 package com.example.identitymanagementservice.utils;
 
+import com.example.identitymanagementservice.common.config.TrigramFunctionContributor;
 import com.example.identitymanagementservice.dto.request.pagenationdto.FilterRequest;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Path;
 import org.springframework.data.jpa.domain.Specification;
 import java.util.ArrayList;
@@ -8,6 +11,9 @@ import java.util.List;
 import jakarta.persistence.criteria.Predicate;
 
 public class FilterSpecificationBuilder<T> {
+
+    public static final String SEARCH = "search";
+
     public Specification<T> build(List<FilterRequest> filters) {
         return (root, query, criteriaBuilder) -> {
             if (filters == null || filters.isEmpty()) {
@@ -15,6 +21,7 @@ public class FilterSpecificationBuilder<T> {
             }
 
             List<Predicate> predicates = new ArrayList<>();
+            List<Order> rankings = new ArrayList<>();
 
             for (FilterRequest filter : filters) {
                 Path<String> path = root.get(filter.getField());
@@ -30,6 +37,15 @@ public class FilterSpecificationBuilder<T> {
                                 "%" + filter.getValue().toLowerCase() + "%"
                         ));
                         break;
+                    case SEARCH:
+                        // Fuzzy match on the trigram-indexed lower(column), best matches first
+                        Expression<String> lowered = criteriaBuilder.lower(path);
+                        Expression<String> term = criteriaBuilder.literal(value.toLowerCase());
+                        predicates.add(criteriaBuilder.isTrue(criteriaBuilder.function(
+                                TrigramFunctionContributor.TRGM_WORD_MATCH, Boolean.class, lowered, term)));
+                        rankings.add(criteriaBuilder.desc(criteriaBuilder.function(
+                                "word_similarity", Double.class, term, lowered)));
+                        break;
                     case "gt":
                         predicates.add(criteriaBuilder.greaterThan(path, filter.getValue()));
                         break;
@@ -40,8 +56,17 @@ public class FilterSpecificationBuilder<T> {
 
             }
 
+            // Count queries have nothing to rank
+            if (!rankings.isEmpty() && query != null && !Long.class.equals(query.getResultType())) {
+                rankings.addAll(query.getOrderList());
+                query.orderBy(rankings);
+            }
+
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
-}
 
+    public static boolean hasSearch(List<FilterRequest> filters) {
+        return filters != null && filters.stream().anyMatch(filter -> SEARCH.equals(filter.getOperator()));
+    }
+}
@@ -10,7 +10,7 @@ import java.util.stream.Collectors;
 public class FilterUtil {
     public static List<FilterRequest> parseFilters(Map<String, String> allParams) {
         return allParams.entrySet().stream()
-                .filter(e -> !List.of("offset", "limit", "sort").contains(e.getKey()))
+                .filter(e -> !List.of("offset", "limit", "sort", "cursor", "total").contains(e.getKey()))
                 .map(e -> {
                     FilterRequest fr = new FilterRequest();
                     String[] parts = e.getKey().split("__");
@@ -0,0 +1,105 @@
+package com.example.identitymanagementservice.utils;
+
+import com.example.identitymanagementservice.common.constants.ErrorCode;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset ("seek") pagination: the cursor carries the sort-key values of the last row returned, and the next page is
+ * the rows strictly after them, so page N costs the same as page 1 (no OFFSET scan, no COUNT).
+ */
+public final class KeysetCursor {
+
+    // Only NOT NULL columns: NULLs would break the strict "after" comparison
+    public static final Set<String> SORT_FIELDS = Set.of("employeeCode", "firstName", "lastName", "email");
+    public static final String INVALID_CURSOR = "Invalid or expired cursor";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {
+    };
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Appends the unique key as a final ascending order, so rows with equal sort values still have a total order.
+     */
+    public static Sort withTiebreaker(Sort sort, String uniqueField) {
+        return sort.getOrderFor(uniqueField) != null ? sort : sort.and(Sort.by(Sort.Direction.ASC, uniqueField));
+    }
+
+    public static boolean supports(Sort sort) {
+        return sort.stream().allMatch(order -> SORT_FIELDS.contains(order.getProperty()));
+    }
+
+    public static String encode(Sort sort, Object lastRow) {
+        BeanWrapperImpl row = new BeanWrapperImpl(lastRow);
+        List<String> values = new ArrayList<>();
+        // The sort signature goes first so a cursor can't be replayed against a different sort
+        values.add(signature(sort));
+        sort.forEach(order -> values.add(String.valueOf(row.getPropertyValue(order.getProperty()))));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(values));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    public static List<String> decode(String cursor, Sort sort) {
+        List<String> values;
+        try {
+            values = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII)),
+                    STRING_LIST);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new TimesheetException(ErrorCode.VALIDATION_ERROR, INVALID_CURSOR);
+        }
+        if (values.isEmpty() || !signature(sort).equals(values.get(0)) || values.size() != sort.toList().size() + 1) {
+            throw new TimesheetException(ErrorCode.VALIDATION_ERROR, INVALID_CURSOR);
+        }
+        return values.subList(1, values.size());
+    }
+
+    /**
+     * Rows strictly after the given key in sort order:
+     * (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ..., with &lt; for descending keys.
+     */
+    public static <T> Specification<T> after(Sort sort, List<String> values) {
+        List<Sort.Order> orders = sort.toList();
+        return (root, query, cb) -> {
+            List<Predicate> alternatives = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                List<Predicate> conjuncts = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    conjuncts.add(cb.equal(root.get(orders.get(j).getProperty()), values.get(j)));
+                }
+                Path<String> path = root.get(orders.get(i).getProperty());
+                conjuncts.add(orders.get(i).isAscending()
+                        ? cb.greaterThan(path, values.get(i))
+                        : cb.lessThan(path, values.get(i)));
+                alternatives.add(cb.and(conjuncts.toArray(new Predicate[0])));
+            }
+            return cb.or(alternatives.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String signature(Sort sort) {
+        return sort.stream()
+                .map(order -> (order.isAscending() ? "" : "-") + order.getProperty())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,20 @@
+-- Outbox for emails queued alongside employee writes and sent by the background dispatcher. Kept out of V1 because
+-- existing databases are baselined at V1 and never run it; if not exists in case a database already has the table.
+
+create sequence if not exists email_outbox_seq start with 1 increment by 50;
+
+create table if not exists email_outbox (
+    id              bigint                      not null,
+    recipient       varchar(255)                not null,
+    subject         varchar(255)                not null,
+    body            text,
+    status          varchar(16)                 not null check (status in ('PENDING', 'SENT', 'DEAD')),
+    attempts        integer                     not null,
+    next_attempt_at timestamp(6) with time zone not null,
+    last_error      varchar(1000),
+    created_on      timestamp(6) with time zone not null,
+    sent_on         timestamp(6) with time zone,
+    constraint email_outbox_pkey primary key (id)
+);
+
+create index if not exists idx_email_outbox_due on email_outbox (status, next_attempt_at);
@@ -0,0 +1,19 @@
+-- Schema as previously generated by hibernate.ddl-auto=update. Existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so this script only runs against empty databases.
+
+create table employee (
+    employee_code    varchar(255) not null,
+    keycloak_user_id varchar(255),
+    first_name       varchar(255) not null,
+    last_name        varchar(255) not null,
+    email            varchar(255) not null,
+    employee_type    varchar(255),
+    manager_code     varchar(255),
+    is_active        boolean      not null default true,
+    created_by       varchar(255),
+    created_on       timestamp(6),
+    updated_by       varchar(255),
+    updated_on       timestamp(6),
+    constraint employee_pkey primary key (employee_code),
+    constraint uk_employee_email unique (email)
+);
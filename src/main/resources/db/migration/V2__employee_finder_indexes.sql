@@ -0,0 +1,11 @@
+-- Indexes for EmployeeRepository's finders. Lookups by email and employee_code already use the unique email
+-- constraint and the primary key. Every other finder also filters on is_active, so these are partial indexes over
+-- active rows only.
+-- CONCURRENTLY keeps the table writable while building. Flyway runs these statements outside a transaction, and
+-- spring.flyway.postgresql.transactional-lock=false keeps its own lock out of one, which the build would wait for.
+
+create index concurrently if not exists idx_employee_manager_code_active
+    on employee (manager_code) where is_active;
+
+create index concurrently if not exists idx_employee_keycloak_user_id_active
+    on employee (keycloak_user_id) where is_active;
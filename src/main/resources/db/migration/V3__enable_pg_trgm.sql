@@ -0,0 +1,2 @@
+-- Needs a role allowed to create extensions (pg_trgm is trusted, so database owners can from Postgres 13)
+create extension if not exists pg_trgm;
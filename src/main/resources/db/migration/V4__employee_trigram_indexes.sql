@@ -0,0 +1,12 @@
+-- Trigram indexes over lower(column) serve both the __search filter (%> word similarity) and the existing
+-- __like filter (lower(column) like '%v%'), which a B-tree index can't.
+-- Built concurrently like V2's indexes, so this also relies on spring.flyway.postgresql.transactional-lock=false.
+
+create index concurrently if not exists idx_employee_first_name_trgm
+    on employee using gin (lower(first_name) gin_trgm_ops);
+
+create index concurrently if not exists idx_employee_last_name_trgm
+    on employee using gin (lower(last_name) gin_trgm_ops);
+
+create index concurrently if not exists idx_employee_email_trgm
+    on employee using gin (lower(email) gin_trgm_ops);
@@ -0,0 +1,5 @@
+-- Templated emails are stored as template name plus variables and rendered (or handed to the provider's template
+-- API) at delivery time, instead of as a pre-rendered body.
+
+alter table email_outbox add column template_name varchar(255);
+alter table email_outbox add column template_variables jsonb;
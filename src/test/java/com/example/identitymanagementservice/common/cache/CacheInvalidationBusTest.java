@@ -0,0 +1,150 @@
+package com.example.identitymanagementservice.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    private static final String CACHE = "employee-identities";
+    private static final String NOTIFY = "select pg_notify(?, ?)";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CacheInvalidationBus bus;
+
+    private final List<Collection<String>> invalidated = new ArrayList<>();
+    private final AtomicInteger resyncs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        bus = bus(true);
+        bus.subscribe(CACHE, invalidated::add, resyncs::incrementAndGet);
+    }
+
+    @Test
+    void publish_sendsKeysOnTheChannel() throws Exception {
+        bus.publish(CACHE, Arrays.asList("EMP001", null, "kc-1"));
+
+        CacheInvalidationBus.Notification notification = objectMapper.readValue(sentPayloads().get(0),
+                CacheInvalidationBus.Notification.class);
+        assertEquals(CACHE, notification.cache());
+        assertEquals(List.of("EMP001", "kc-1"), notification.keys());
+    }
+
+    @Test
+    void publish_splitsLargeKeySetsBelowThePayloadLimit() throws Exception {
+        List<String> keys = IntStream.range(0, 1000).mapToObj(i -> "00000000-0000-0000-0000-00000000" + (1000 + i))
+                .toList();
+
+        bus.publish(CACHE, keys);
+
+        List<String> payloads = sentPayloads();
+        assertTrue(payloads.size() > 1);
+        List<String> delivered = new ArrayList<>();
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length < 8000);
+            delivered.addAll(objectMapper.readValue(payload, CacheInvalidationBus.Notification.class).keys());
+        }
+        assertEquals(keys, delivered);
+    }
+
+    @Test
+    void publish_oversizedKeyFallsBackToWholeCache() throws Exception {
+        bus.publish(CACHE, List.of("x".repeat(CacheInvalidationBus.MAX_KEY_BYTES)));
+
+        assertNull(objectMapper.readValue(sentPayloads().get(0), CacheInvalidationBus.Notification.class).keys());
+    }
+
+    @Test
+    void publish_whenDisabled_sendsNothing() {
+        bus(false).publish(CACHE, List.of("EMP001"));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void dispatch_handsKeysToSubscribersOfThatCacheOnly() throws Exception {
+        bus.dispatch(remote(CACHE, List.of("EMP001")));
+        bus.dispatch(remote("role-memberships", List.of("Employee")));
+
+        assertEquals(List.of(List.of("EMP001")), invalidated);
+        assertEquals(0, resyncs.get());
+    }
+
+    @Test
+    void dispatch_skipsOwnNotifications() {
+        bus.publish(CACHE, List.of("EMP001"));
+
+        bus.dispatch(sentPayloads().get(0));
+
+        assertTrue(invalidated.isEmpty());
+    }
+
+    @Test
+    void dispatch_withoutKeys_resyncsSubscribers() throws Exception {
+        bus.dispatch(remote(CACHE, null));
+
+        assertTrue(invalidated.isEmpty());
+        assertEquals(1, resyncs.get());
+    }
+
+    @Test
+    void dispatch_ignoresMalformedPayloads() {
+        bus.dispatch("not json");
+
+        assertTrue(invalidated.isEmpty());
+    }
+
+    @Test
+    void resync_notifiesEverySubscriber() {
+        AtomicInteger roleResyncs = new AtomicInteger();
+        bus.subscribe("role-memberships", keys -> { }, roleResyncs::incrementAndGet);
+
+        bus.resync();
+
+        assertEquals(1, resyncs.get());
+        assertEquals(1, roleResyncs.get());
+    }
+
+    private CacheInvalidationBus bus(boolean enabled) {
+        return new CacheInvalidationBus(jdbcTemplate, objectMapper, enabled, Duration.ofMillis(250),
+                Duration.ofSeconds(5));
+    }
+
+    private List<String> sentPayloads() {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeast(1)).queryForList(eq(NOTIFY), eq(CacheInvalidationBus.CHANNEL), payload.capture());
+        return payload.getAllValues();
+    }
+
+    private String remote(String cache, List<String> keys) throws Exception {
+        return objectMapper.writeValueAsString(
+                new CacheInvalidationBus.Notification("other-instance", cache, keys, System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.identitymanagementservice.common.cache;
+
+import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import com.example.identitymanagementservice.repository.EmployeeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeIdentityCacheTest {
+
+    private static final String EMPLOYEE_CODE = "EMP001";
+    private static final String KEYCLOAK_USER_ID = "kc-1";
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Captor
+    private ArgumentCaptor<Consumer<Collection<String>>> onKeys;
+
+    private EmployeeIdentityCache cache;
+    private UserIdentityDto identity;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EmployeeIdentityCache(employeeRepository, invalidationBus, 100, Duration.ofMinutes(5));
+        identity = UserIdentityDto.builder()
+                .employeeCode(EMPLOYEE_CODE)
+                .keycloakUserId(KEYCLOAK_USER_ID)
+                .firstName("John")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getByEmployeeCode_loadsOnceThenServesFromCache() {
+        when(employeeRepository.findIdentityByEmployeeCode(EMPLOYEE_CODE)).thenReturn(Optional.of(identity));
+
+        assertEquals(identity, cache.getByEmployeeCode(EMPLOYEE_CODE).orElseThrow());
+        assertEquals(identity, cache.getByEmployeeCode(EMPLOYEE_CODE).orElseThrow());
+
+        verify(employeeRepository, times(1)).findIdentityByEmployeeCode(EMPLOYEE_CODE);
+    }
+
+    @Test
+    void getByEmployeeCode_doesNotCacheMisses() {
+        when(employeeRepository.findIdentityByEmployeeCode(EMPLOYEE_CODE))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(identity));
+
+        assertTrue(cache.getByEmployeeCode(EMPLOYEE_CODE).isEmpty());
+        assertEquals(identity, cache.getByEmployeeCode(EMPLOYEE_CODE).orElseThrow());
+    }
+
+    @Test
+    void evict_dropsEntriesUnderBothKeys() {
+        when(employeeRepository.findIdentityByEmployeeCode(EMPLOYEE_CODE)).thenReturn(Optional.of(identity));
+        when(employeeRepository.findIdentityByKeycloakUserId(KEYCLOAK_USER_ID)).thenReturn(Optional.of(identity));
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        cache.getByKeycloakUserId(KEYCLOAK_USER_ID);
+
+        cache.evict(EMPLOYEE_CODE, KEYCLOAK_USER_ID);
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        cache.getByKeycloakUserId(KEYCLOAK_USER_ID);
+
+        verify(employeeRepository, times(2)).findIdentityByEmployeeCode(EMPLOYEE_CODE);
+        verify(employeeRepository, times(2)).findIdentityByKeycloakUserId(KEYCLOAK_USER_ID);
+        verify(invalidationBus).publish("employee-identities", List.of(EMPLOYEE_CODE, KEYCLOAK_USER_ID));
+    }
+
+    @Test
+    void remoteInvalidation_dropsEntriesUnderEitherKey() {
+        verify(invalidationBus).subscribe(eq("employee-identities"), onKeys.capture(), any(Runnable.class));
+        when(employeeRepository.findIdentityByEmployeeCode(EMPLOYEE_CODE)).thenReturn(Optional.of(identity));
+        when(employeeRepository.findIdentityByKeycloakUserId(KEYCLOAK_USER_ID)).thenReturn(Optional.of(identity));
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        cache.getByKeycloakUserId(KEYCLOAK_USER_ID);
+
+        onKeys.getValue().accept(List.of(EMPLOYEE_CODE, KEYCLOAK_USER_ID));
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        cache.getByKeycloakUserId(KEYCLOAK_USER_ID);
+
+        verify(employeeRepository, times(2)).findIdentityByEmployeeCode(EMPLOYEE_CODE);
+        verify(employeeRepository, times(2)).findIdentityByKeycloakUserId(KEYCLOAK_USER_ID);
+        // Remote evictions don't echo back onto the bus
+        verify(invalidationBus, never()).publish(any(), any());
+    }
+
+    @Test
+    void evict_insideTransaction_evictsAgainAfterCommit() {
+        when(employeeRepository.findIdentityByEmployeeCode(EMPLOYEE_CODE)).thenReturn(Optional.of(identity));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evict(EMPLOYEE_CODE, KEYCLOAK_USER_ID);
+        // A read that races the uncommitted write caches the old row...
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        // ...and the after-commit eviction drops it again
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+
+        verify(employeeRepository, times(2)).findIdentityByEmployeeCode(EMPLOYEE_CODE);
+    }
+
+    @Test
+    void bindTo_exposesHitsAndInvalidations() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        when(employeeRepository.findIdentityByEmployeeCode(EMPLOYEE_CODE)).thenReturn(Optional.of(identity));
+
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        cache.getByEmployeeCode(EMPLOYEE_CODE);
+        cache.evict(EMPLOYEE_CODE, KEYCLOAK_USER_ID);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "employee-identities").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("cache.invalidations").tag("cache", "employee-identities")
+                .functionCounter().count());
+    }
+}
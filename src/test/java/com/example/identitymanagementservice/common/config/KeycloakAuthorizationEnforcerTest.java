@@ -0,0 +1,228 @@
+package com.example.identitymanagementservice.common.config;
+
+import com.example.identitymanagementservice.enums.AuthorizationFallbackPolicy;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.identitymanagementservice.common.constants.ErrorCode.SERVICE_UNAVAILABLE_ERROR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakAuthorizationEnforcerTest {
+
+    private static final String TOKEN = "token-value";
+    private static final String RESOURCE = "tms:com";
+    private static final String SCOPE = "tms:com:get";
+    private static final int CONCURRENT_CALLERS = 8;
+
+    @Mock
+    private RestTemplate keycloakRestTemplate;
+
+    private AuthorizationProperties properties;
+    private CircuitBreaker circuitBreaker;
+    private KeycloakAuthorizationEnforcer enforcer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuthorizationProperties();
+        circuitBreaker = CircuitBreaker.ofDefaults("test");
+        enforcer = newEnforcer();
+
+        Jwt jwt = Jwt.withTokenValue(TOKEN)
+                .header("alg", "RS256")
+                .claim("jti", "jti-1")
+                .subject("user-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plus(Duration.ofMinutes(5)))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private KeycloakAuthorizationEnforcer newEnforcer() {
+        KeycloakAuthorizationEnforcer created = new KeycloakAuthorizationEnforcer(
+                keycloakRestTemplate,
+                new UmaDecisionCache(properties),
+                new LocalPolicyEvaluator(properties),
+                circuitBreaker);
+        ReflectionTestUtils.setField(created, "keycloakBaseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(created, "realm", "test-realm");
+        ReflectionTestUtils.setField(created, "clientId", "test-client");
+        return created;
+    }
+
+    private void keycloakGrants() {
+        when(keycloakRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class)))
+                .thenReturn(new ResponseEntity<>(Map.of("result", true), HttpStatus.OK));
+    }
+
+    @Test
+    void isAuthorized_cachesDecisionForSameToken() {
+        keycloakGrants();
+
+        assertTrue(enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE));
+        assertTrue(enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE));
+
+        verify(keycloakRestTemplate, times(1))
+                .exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class));
+    }
+
+    @Test
+    void isAuthorized_cachesExplicitDenial() {
+        when(keycloakRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", null, null, null));
+
+        assertFalse(enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE));
+        assertFalse(enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE));
+
+        verify(keycloakRestTemplate, times(1))
+                .exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class));
+    }
+
+    @Test
+    void isAuthorized_failsClosedWhenCircuitIsOpen() {
+        circuitBreaker.transitionToForcedOpenState();
+
+        TimesheetException ex = assertThrows(TimesheetException.class,
+                () -> enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE, AuthorizationFallbackPolicy.FAIL_CLOSED));
+
+        assertEquals(SERVICE_UNAVAILABLE_ERROR, ex.getErrorCode());
+        verify(keycloakRestTemplate, never())
+                .exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class));
+    }
+
+    @Test
+    void isAuthorized_servesStaleDecisionWhenCircuitIsOpen() {
+        // Zero TTL: every decision is immediately stale but kept for the grace period
+        properties.getCache().setTtl(Duration.ZERO);
+        enforcer = newEnforcer();
+        keycloakGrants();
+
+        assertTrue(enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE));
+        circuitBreaker.transitionToForcedOpenState();
+
+        assertTrue(enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE, AuthorizationFallbackPolicy.SERVE_STALE));
+        assertThrows(TimesheetException.class,
+                () -> enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE, AuthorizationFallbackPolicy.FAIL_CLOSED));
+    }
+
+    @Test
+    void isAuthorized_concurrentIdenticalChecksShareOneKeycloakCall() throws Exception {
+        when(keycloakRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class)))
+                .thenAnswer(invocation -> {
+                    awaitFollowers(CONCURRENT_CALLERS - 1);
+                    return new ResponseEntity<>(Map.of("result", true), HttpStatus.OK);
+                });
+
+        for (Future<Boolean> result : checkConcurrently()) {
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+
+        verify(keycloakRestTemplate, times(1))
+                .exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class));
+        assertTrue(inFlight().isEmpty());
+    }
+
+    @Test
+    void isAuthorized_whenSharedCallFails_everyCallerFailsInsteadOfHanging() throws Exception {
+        when(keycloakRestTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class)))
+                .thenAnswer(invocation -> {
+                    awaitFollowers(CONCURRENT_CALLERS - 1);
+                    throw new ResourceAccessException("Read timed out");
+                });
+
+        for (Future<Boolean> result : checkConcurrently()) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals(SERVICE_UNAVAILABLE_ERROR, ((TimesheetException) ex.getCause()).getErrorCode());
+        }
+
+        verify(keycloakRestTemplate, times(1))
+                .exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class));
+        assertTrue(inFlight().isEmpty());
+    }
+
+    // Runs the same check from several threads at once. The security context is per thread, so these checks have no
+    // cache key and can only share the in-flight call.
+    private List<Future<Boolean>> checkConcurrently() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CALLERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return enforcer.isAuthorized(TOKEN, RESOURCE, SCOPE);
+                }));
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Holds the leader's Keycloak call until every other caller is waiting on it
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            CompletableFuture<?> call = inFlight().values().stream().findFirst().orElse(null);
+            if (call != null && call.getNumberOfDependents() >= followers) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        fail("Only some callers joined the in-flight UMA request");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, CompletableFuture<?>> inFlight() {
+        return (Map<String, CompletableFuture<?>>) ReflectionTestUtils.getField(enforcer, "inFlight");
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.identitymanagementservice.common.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalPolicyEvaluatorTest {
+
+    private AuthorizationProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuthorizationProperties();
+        properties.setMode(AuthorizationProperties.Mode.LOCAL_FIRST);
+        properties.getLocal().getRolePermissions().put("Employee", List.of("tms:com#tms:com:get"));
+    }
+
+    private Jwt.Builder token() {
+        return Jwt.withTokenValue("token").header("alg", "RS256").subject("user-1");
+    }
+
+    @Test
+    void permits_grantsFromRptPermissions() {
+        Jwt rpt = token()
+                .claim("authorization", Map.of("permissions", List.of(
+                        Map.of("rsname", "idms:admin", "scopes", List.of("idms:user:add")))))
+                .build();
+
+        LocalPolicyEvaluator evaluator = new LocalPolicyEvaluator(properties);
+
+        assertTrue(evaluator.permits(rpt, "idms:admin", "idms:user:add"));
+        assertFalse(evaluator.permits(rpt, "idms:admin", "idms:user:update"));
+    }
+
+    @Test
+    void permits_grantsFromRoleMapping() {
+        Jwt jwt = token().claim("realm_access", Map.of("roles", List.of("Employee"))).build();
+
+        LocalPolicyEvaluator evaluator = new LocalPolicyEvaluator(properties);
+
+        assertTrue(evaluator.permits(jwt, "tms:com", "tms:com:get"));
+        assertFalse(evaluator.permits(jwt, "idms:admin", "idms:user:add"));
+    }
+
+    @Test
+    void permits_neverGrantsInRemoteMode() {
+        properties.setMode(AuthorizationProperties.Mode.REMOTE);
+        Jwt jwt = token().claim("realm_access", Map.of("roles", List.of("Employee"))).build();
+
+        LocalPolicyEvaluator evaluator = new LocalPolicyEvaluator(properties);
+
+        assertFalse(evaluator.permits(jwt, "tms:com", "tms:com:get"));
+    }
+}
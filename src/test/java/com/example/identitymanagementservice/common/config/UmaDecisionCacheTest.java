@@ -0,0 +1,101 @@
+package com.example.identitymanagementservice.common.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UmaDecisionCacheTest {
+
+    private static final String RESOURCE = "tms:com";
+    private static final String SCOPE = "tms:com:get";
+
+    private AuthorizationProperties properties;
+    private UmaDecisionCache decisionCache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AuthorizationProperties();
+        decisionCache = new UmaDecisionCache(properties);
+    }
+
+    private Jwt jwt(String jti, Instant expiresAt) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .claim("jti", jti)
+                .subject("user-1")
+                .issuedAt(expiresAt.minus(Duration.ofHours(1)))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Test
+    void keyFor_combinesTokenIdAndPermission() {
+        Jwt token = jwt("jti-1", Instant.now().plus(Duration.ofMinutes(5)));
+
+        assertEquals("jti-1|tms:com#tms:com:get", decisionCache.keyFor(token, RESOURCE, SCOPE));
+    }
+
+    @Test
+    void keyFor_returnsNullWhenCacheDisabled() {
+        properties.getCache().setEnabled(false);
+        decisionCache = new UmaDecisionCache(properties);
+
+        assertNull(decisionCache.keyFor(jwt("jti-1", Instant.now().plusSeconds(60)), RESOURCE, SCOPE));
+    }
+
+    @Test
+    void put_thenGet_returnsCachedDecisionAndRecordsHit() {
+        Jwt token = jwt("jti-1", Instant.now().plus(Duration.ofMinutes(5)));
+        String key = decisionCache.keyFor(token, RESOURCE, SCOPE);
+
+        assertNull(decisionCache.get(key));
+        decisionCache.put(key, true, token.getExpiresAt());
+
+        assertTrue(decisionCache.get(key));
+        assertEquals(1, decisionCache.stats().hitCount());
+        assertEquals(1, decisionCache.stats().missCount());
+    }
+
+    @Test
+    void get_pastTtl_isAMissButStillServedAsStale() {
+        properties.getCache().setTtl(Duration.ZERO);
+        decisionCache = new UmaDecisionCache(properties);
+        Jwt token = jwt("jti-4", Instant.now().plus(Duration.ofMinutes(5)));
+        String key = decisionCache.keyFor(token, RESOURCE, SCOPE);
+
+        decisionCache.put(key, true, token.getExpiresAt());
+
+        assertNull(decisionCache.get(key));
+        assertTrue(decisionCache.getStale(key));
+        assertEquals(0, decisionCache.stats().hitCount());
+        assertEquals(1, decisionCache.stats().missCount());
+    }
+
+    @Test
+    void put_ignoresTokensThatAlreadyExpired() {
+        Jwt token = jwt("jti-2", Instant.now().minusSeconds(1));
+        String key = decisionCache.keyFor(token, RESOURCE, SCOPE);
+
+        decisionCache.put(key, false, token.getExpiresAt());
+
+        assertNull(decisionCache.get(key));
+    }
+
+    @Test
+    void put_keepsDenials() {
+        Jwt token = jwt("jti-3", Instant.now().plus(Duration.ofMinutes(5)));
+        String key = decisionCache.keyFor(token, RESOURCE, SCOPE);
+
+        decisionCache.put(key, false, token.getExpiresAt());
+
+        assertFalse(decisionCache.get(key));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.identitymanagementservice.common.email;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailTemplateUtilTest {
+
+    @AfterEach
+    void tearDown() {
+        EmailTemplateUtil.setCacheEnabled(true);
+        EmailTemplateUtil.clearCache();
+    }
+
+    @Test
+    void loadTemplate_fillsUserCreationTemplate() {
+        String body = EmailTemplateUtil.loadTemplate("UserCreationTemplate.txt",
+                Map.of("firstName", "John", "username", "EMP001", "password", "s3cret"));
+
+        assertTrue(body.startsWith("Hello John,"));
+        assertTrue(body.contains("Username: EMP001\n"));
+        assertTrue(body.contains("Temporary Password: s3cret\n"));
+    }
+
+    @Test
+    void render_supportsBothPlaceholderStylesAndKeepsUnknownOnes() {
+        EmailTemplateUtil.CompiledTemplate template =
+                EmailTemplateUtil.CompiledTemplate.parse("Hi {{name}}, code ${code} {{missing}} ${open");
+
+        assertEquals("Hi Ann, code 42 {{missing}} ${open", template.render(Map.of("name", "Ann", "code", "42")));
+    }
+
+    @Test
+    void render_doesNotExpandPlaceholdersInsideValues() {
+        EmailTemplateUtil.CompiledTemplate template = EmailTemplateUtil.CompiledTemplate.parse("{{a}}-{{b}}");
+
+        assertEquals("{{b}}-x", template.render(Map.of("a", "{{b}}", "b", "x")));
+    }
+
+    @Test
+    void compiledTemplate_isCachedUnlessCachingIsDisabled() {
+        assertSame(EmailTemplateUtil.compiledTemplate("UserCreationTemplate.txt"),
+                EmailTemplateUtil.compiledTemplate("UserCreationTemplate.txt"));
+
+        EmailTemplateUtil.setCacheEnabled(false);
+        assertNotSame(EmailTemplateUtil.compiledTemplate("UserCreationTemplate.txt"),
+                EmailTemplateUtil.compiledTemplate("UserCreationTemplate.txt"));
+    }
+
+    @Test
+    void loadTemplate_missingTemplateThrows() {
+        assertThrows(RuntimeException.class, () -> EmailTemplateUtil.loadTemplate("NoSuchTemplate.txt", Map.of()));
+    }
+}
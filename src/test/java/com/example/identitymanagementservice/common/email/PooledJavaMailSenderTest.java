@@ -0,0 +1,87 @@
+package com.example.identitymanagementservice.common.email;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final AtomicInteger connects = new AtomicInteger();
+    private PooledJavaMailSender mailSender;
+
+    @AfterEach
+    void tearDown() {
+        mailSender.destroy();
+    }
+
+    @Test
+    void send_reusesConnectionAcrossCalls() {
+        mailSender = sender(100);
+
+        mailSender.send(message(0));
+        mailSender.send(message(1), message(2));
+
+        assertEquals(3, greenMail.getReceivedMessages().length);
+        assertEquals(1, connects.get());
+    }
+
+    @Test
+    void send_retiresConnectionAfterMaxMessages() {
+        mailSender = sender(2);
+
+        mailSender.send(IntStream.range(0, 5).mapToObj(this::message).toArray(SimpleMailMessage[]::new));
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(3, connects.get());
+    }
+
+    @Test
+    void send_reconnectsAfterServerDropsPooledConnection() {
+        mailSender = sender(100);
+        mailSender.send(message(0));
+
+        // Restarting the server closes the idle pooled connection
+        greenMail.reset();
+        mailSender.send(message(1));
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals(2, connects.get());
+    }
+
+    private PooledJavaMailSender sender(int maxMessagesPerConnection) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(2, maxMessagesPerConnection,
+                Duration.ofMinutes(1), Duration.ofSeconds(5)) {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                connects.incrementAndGet();
+                return super.connectTransport();
+            }
+        };
+        sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        return sender;
+    }
+
+    private SimpleMailMessage message(int i) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("no-reply@example.com");
+        message.setTo("user" + i + "@example.com");
+        message.setSubject("Subject " + i);
+        message.setText("Body " + i);
+        return message;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.identitymanagementservice.common.email.service.service.impl;
+
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
+import com.example.identitymanagementservice.common.email.TokenBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.ses.SesClient;
+import software.amazon.awssdk.services.ses.model.BulkEmailDestinationStatus;
+import software.amazon.awssdk.services.ses.model.BulkEmailStatus;
+import software.amazon.awssdk.services.ses.model.CreateTemplateRequest;
+import software.amazon.awssdk.services.ses.model.GetTemplateRequest;
+import software.amazon.awssdk.services.ses.model.GetTemplateResponse;
+import software.amazon.awssdk.services.ses.model.SendBulkTemplatedEmailRequest;
+import software.amazon.awssdk.services.ses.model.SendBulkTemplatedEmailResponse;
+import software.amazon.awssdk.services.ses.model.SendEmailRequest;
+import software.amazon.awssdk.services.ses.model.SendEmailResponse;
+import software.amazon.awssdk.services.ses.model.SesException;
+import software.amazon.awssdk.services.ses.model.TemplateDoesNotExistException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AwsSesEmailServiceTest {
+
+    private static final String TEMPLATE = "UserCreationTemplate.txt";
+    private static final String SUBJECT = "Welcome";
+
+    @Mock
+    private SesClient sesClient;
+
+    private AwsSesEmailService awsSesEmailService;
+
+    @BeforeEach
+    void setUp() {
+        // Effectively unlimited so tests never wait
+        awsSesEmailService = new AwsSesEmailService(sesClient, new TokenBucket(1_000_000));
+    }
+
+    @Test
+    void sendEmails_groupsTemplatedMessagesIntoBulkCallsOfFifty() {
+        when(sesClient.getTemplate(any(GetTemplateRequest.class)))
+                .thenThrow(TemplateDoesNotExistException.builder().message("missing").build());
+        when(sesClient.sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class)))
+                .thenAnswer(invocation -> allSucceeded(invocation.getArgument(0)));
+
+        List<EmailMessage> messages = IntStream.range(0, 60)
+                .mapToObj(i -> EmailMessage.templated("user" + i + "@example.com", SUBJECT, TEMPLATE,
+                        Map.of("firstName", "User" + i)))
+                .toList();
+
+        List<EmailDeliveryResult> results = awsSesEmailService.sendEmails(messages);
+
+        assertEquals(60, results.size());
+        assertTrue(results.stream().allMatch(EmailDeliveryResult::sent));
+        assertEquals("user59@example.com", results.get(59).to());
+
+        ArgumentCaptor<SendBulkTemplatedEmailRequest> requests =
+                ArgumentCaptor.forClass(SendBulkTemplatedEmailRequest.class);
+        verify(sesClient, times(2)).sendBulkTemplatedEmail(requests.capture());
+        assertEquals(AwsSesEmailService.MAX_BULK_DESTINATIONS, requests.getAllValues().get(0).destinations().size());
+        assertEquals(10, requests.getAllValues().get(1).destinations().size());
+        assertEquals("{\"firstName\":\"User0\"}",
+                requests.getAllValues().get(0).destinations().get(0).replacementTemplateData());
+
+        // Registered once, with the local template's placeholders
+        ArgumentCaptor<CreateTemplateRequest> created = ArgumentCaptor.forClass(CreateTemplateRequest.class);
+        verify(sesClient).createTemplate(created.capture());
+        assertEquals(SUBJECT, created.getValue().template().subjectPart());
+        assertTrue(created.getValue().template().textPart().contains("Hello {{firstName}},"));
+        assertEquals(requests.getAllValues().get(0).template(), created.getValue().template().templateName());
+    }
+
+    @Test
+    void sendEmails_reportsPerRecipientBulkOutcomes() {
+        when(sesClient.getTemplate(any(GetTemplateRequest.class))).thenReturn(GetTemplateResponse.builder().build());
+        when(sesClient.sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class)))
+                .thenReturn(SendBulkTemplatedEmailResponse.builder()
+                        .status(BulkEmailDestinationStatus.builder().status(BulkEmailStatus.SUCCESS).messageId("m-1").build(),
+                                BulkEmailDestinationStatus.builder().status(BulkEmailStatus.MESSAGE_REJECTED)
+                                        .error("Email address is not verified").build())
+                        .build());
+
+        List<EmailDeliveryResult> results = awsSesEmailService.sendEmails(List.of(
+                EmailMessage.templated("a@example.com", SUBJECT, TEMPLATE, Map.of()),
+                EmailMessage.templated("b@example.com", SUBJECT, TEMPLATE, Map.of())));
+
+        assertTrue(results.get(0).sent());
+        assertEquals("m-1", results.get(0).messageId());
+        assertFalse(results.get(1).sent());
+        assertEquals("MessageRejected: Email address is not verified", results.get(1).error());
+        verify(sesClient, never()).createTemplate(any(CreateTemplateRequest.class));
+    }
+
+    @Test
+    void sendEmails_unserializableVariablesFailOnlyThatRecipient() {
+        when(sesClient.getTemplate(any(GetTemplateRequest.class))).thenReturn(GetTemplateResponse.builder().build());
+        when(sesClient.sendBulkTemplatedEmail(any(SendBulkTemplatedEmailRequest.class)))
+                .thenAnswer(invocation -> allSucceeded(invocation.getArgument(0)));
+        // JSON objects can't have a null key
+        Map<String, String> broken = new HashMap<>();
+        broken.put(null, "x");
+
+        List<EmailDeliveryResult> results = awsSesEmailService.sendEmails(List.of(
+                EmailMessage.templated("a@example.com", SUBJECT, TEMPLATE, broken),
+                EmailMessage.templated("b@example.com", SUBJECT, TEMPLATE, Map.of("firstName", "Bo"))));
+
+        assertFalse(results.get(0).sent());
+        assertEquals("Template variables are not serializable", results.get(0).error());
+        assertTrue(results.get(1).sent());
+        ArgumentCaptor<SendBulkTemplatedEmailRequest> request =
+                ArgumentCaptor.forClass(SendBulkTemplatedEmailRequest.class);
+        verify(sesClient).sendBulkTemplatedEmail(request.capture());
+        assertEquals(1, request.getValue().destinations().size());
+    }
+
+    @Test
+    void sendEmails_plainMessageFailureDoesNotStopTheBatch() {
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenThrow(throttled())
+                .thenReturn(SendEmailResponse.builder().messageId("m-2").build());
+
+        List<EmailDeliveryResult> results = awsSesEmailService.sendEmails(List.of(
+                EmailMessage.plain("a@example.com", SUBJECT, "one"),
+                EmailMessage.plain("b@example.com", SUBJECT, "two")));
+
+        assertFalse(results.get(0).sent());
+        assertEquals("Maximum sending rate exceeded.", results.get(0).error());
+        assertTrue(results.get(1).sent());
+        assertEquals("m-2", results.get(1).messageId());
+    }
+
+    @Test
+    void sendEmail_rethrowsSesFailures() {
+        when(sesClient.sendEmail(any(SendEmailRequest.class))).thenThrow(throttled());
+
+        assertThrows(SesException.class, () -> awsSesEmailService.sendEmail("a@example.com", SUBJECT, "text"));
+    }
+
+    private static SesException throttled() {
+        return (SesException) SesException.builder()
+                .message("Throttling")
+                .awsErrorDetails(AwsErrorDetails.builder().errorMessage("Maximum sending rate exceeded.").build())
+                .build();
+    }
+
+    private static SendBulkTemplatedEmailResponse allSucceeded(SendBulkTemplatedEmailRequest request) {
+        List<BulkEmailDestinationStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < request.destinations().size(); i++) {
+            statuses.add(BulkEmailDestinationStatus.builder().status(BulkEmailStatus.SUCCESS).messageId("m" + i).build());
+        }
+        return SendBulkTemplatedEmailResponse.builder().status(statuses).build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.identitymanagementservice.common.email.service.service.impl;
+
+import com.example.identitymanagementservice.common.email.EmailDeliveryResult;
+import com.example.identitymanagementservice.common.email.EmailMessage;
+import com.example.identitymanagementservice.common.email.service.EmailService;
+import com.example.identitymanagementservice.enums.EmailOutboxStatus;
+import com.example.identitymanagementservice.model.EmailOutbox;
+import com.example.identitymanagementservice.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxServiceImplTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    private EmailOutboxServiceImpl emailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxService = new EmailOutboxServiceImpl(emailOutboxRepository, emailService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), BATCH_SIZE, MAX_ATTEMPTS,
+                Duration.ofMinutes(5), Duration.ofSeconds(30), Duration.ofMinutes(2));
+    }
+
+    @Test
+    void enqueue_savesPendingEmailDueNow() {
+        emailOutboxService.enqueue("a@example.com", "Subject", "Body");
+
+        ArgumentCaptor<EmailOutbox> captor = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(emailOutboxRepository).save(captor.capture());
+        EmailOutbox saved = captor.getValue();
+        assertEquals("a@example.com", saved.getRecipient());
+        assertEquals("Body", saved.getBody());
+        assertEquals(EmailOutboxStatus.PENDING, saved.getStatus());
+        assertEquals(0, saved.getAttempts());
+        assertTrue(!saved.getNextAttemptAt().isAfter(Instant.now()));
+        verify(emailService, never()).sendEmail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void enqueueTemplate_storesTemplateAndVariablesInsteadOfABody() {
+        emailOutboxService.enqueueTemplate("a@example.com", "Subject", "UserCreationTemplate.txt",
+                Map.of("firstName", "Alice"));
+
+        ArgumentCaptor<EmailOutbox> captor = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(emailOutboxRepository).save(captor.capture());
+        EmailOutbox saved = captor.getValue();
+        assertEquals("UserCreationTemplate.txt", saved.getTemplateName());
+        assertEquals(Map.of("firstName", "Alice"), saved.getTemplateVariables());
+        assertNull(saved.getBody());
+    }
+
+    @Test
+    void dispatch_sendsTemplatedRowsAsTemplatedMessages() {
+        EmailOutbox email = email(1L, 0);
+        email.setBody(null);
+        email.setTemplateName("UserCreationTemplate.txt");
+        email.setTemplateVariables(Map.of("firstName", "Alice"));
+        when(emailOutboxRepository.lockDue(any(Instant.class), eq(BATCH_SIZE))).thenReturn(List.of(email));
+        when(emailService.sendEmails(anyList())).thenAnswer(invocation -> allSent(invocation.getArgument(0)));
+
+        assertEquals(1, emailOutboxService.dispatch());
+        verify(emailService).sendEmails(List.of(EmailMessage.templated("a@example.com", "Subject",
+                "UserCreationTemplate.txt", Map.of("firstName", "Alice"))));
+    }
+
+    @Test
+    void dispatch_sendsDueEmailsAndMarksThemSent() {
+        EmailOutbox email = email(1L, 0);
+        when(emailOutboxRepository.lockDue(any(Instant.class), eq(BATCH_SIZE))).thenReturn(List.of(email));
+        when(emailService.sendEmails(anyList())).thenAnswer(invocation -> allSent(invocation.getArgument(0)));
+
+        int sent = emailOutboxService.dispatch();
+
+        assertEquals(1, sent);
+        assertEquals(1, email.getAttempts());
+        // Leased while sending, so another dispatcher doesn't pick it up
+        assertTrue(email.getNextAttemptAt().isAfter(Instant.now().plus(Duration.ofMinutes(4))));
+        verify(emailService).sendEmails(List.of(EmailMessage.plain("a@example.com", "Subject", "Body")));
+        verify(emailOutboxRepository).markSent(eq(1L), eq(EmailOutboxStatus.SENT), any(Instant.class));
+    }
+
+    @Test
+    void dispatch_keepsClaimingWhileBatchesAreFull() {
+        when(emailOutboxRepository.lockDue(any(Instant.class), eq(BATCH_SIZE)))
+                .thenReturn(List.of(email(1L, 0), email(2L, 0)))
+                .thenReturn(List.of());
+        when(emailService.sendEmails(anyList())).thenAnswer(invocation -> allSent(invocation.getArgument(0)));
+
+        assertEquals(2, emailOutboxService.dispatch());
+        verify(emailOutboxRepository, times(2)).lockDue(any(Instant.class), anyInt());
+    }
+
+    @Test
+    void dispatch_whenSendFails_reschedulesWithBackoff() {
+        EmailOutbox email = email(1L, 0);
+        when(emailOutboxRepository.lockDue(any(Instant.class), eq(BATCH_SIZE))).thenReturn(List.of(email));
+        when(emailService.sendEmails(anyList()))
+                .thenReturn(List.of(EmailDeliveryResult.failed("a@example.com", "relay down")));
+
+        assertEquals(0, emailOutboxService.dispatch());
+
+        ArgumentCaptor<Instant> retryAt = ArgumentCaptor.forClass(Instant.class);
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(EmailOutboxStatus.PENDING), retryAt.capture(),
+                eq("relay down"));
+        assertTrue(retryAt.getValue().isAfter(Instant.now().plus(Duration.ofSeconds(20))));
+        verify(emailOutboxRepository, never()).markSent(any(), any(), any());
+    }
+
+    @Test
+    void dispatch_whenLastAttemptFails_deadLettersEmail() {
+        EmailOutbox email = email(1L, MAX_ATTEMPTS - 1);
+        when(emailOutboxRepository.lockDue(any(Instant.class), eq(BATCH_SIZE))).thenReturn(List.of(email));
+        when(emailService.sendEmails(anyList()))
+                .thenReturn(List.of(EmailDeliveryResult.failed("a@example.com", "mailbox unavailable")));
+
+        emailOutboxService.dispatch();
+
+        verify(emailOutboxRepository).markDead(1L, EmailOutboxStatus.DEAD, "mailbox unavailable");
+        verify(emailOutboxRepository, never()).markFailed(any(), any(), any(), any());
+    }
+
+    @Test
+    void dispatch_whenBatchSendThrows_reschedulesEveryEmail() {
+        when(emailOutboxRepository.lockDue(any(Instant.class), eq(BATCH_SIZE))).thenReturn(List.of(email(1L, 0)));
+        when(emailService.sendEmails(anyList())).thenThrow(new IllegalStateException("provider not configured"));
+
+        assertEquals(0, emailOutboxService.dispatch());
+        verify(emailOutboxRepository).markFailed(eq(1L), eq(EmailOutboxStatus.PENDING), any(Instant.class),
+                eq("No delivery result"));
+    }
+
+    @Test
+    void backoff_doublesPerAttemptUpToMaximum() {
+        assertEquals(Duration.ofSeconds(30), emailOutboxService.backoff(1));
+        assertEquals(Duration.ofSeconds(60), emailOutboxService.backoff(2));
+        assertEquals(Duration.ofMinutes(2), emailOutboxService.backoff(3));
+        assertEquals(Duration.ofMinutes(2), emailOutboxService.backoff(30));
+    }
+
+    private static List<EmailDeliveryResult> allSent(List<EmailMessage> messages) {
+        return messages.stream().map(message -> EmailDeliveryResult.sent(message.to(), null)).toList();
+    }
+
+    private static EmailOutbox email(Long id, int attempts) {
+        EmailOutbox email = new EmailOutbox();
+        email.setId(id);
+        email.setRecipient("a@example.com");
+        email.setSubject("Subject");
+        email.setBody("Body");
+        email.setAttempts(attempts);
+        email.setNextAttemptAt(Instant.now());
+        return email;
+    }
+}
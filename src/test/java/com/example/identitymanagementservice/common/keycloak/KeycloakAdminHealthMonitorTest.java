@@ -0,0 +1,65 @@
+package com.example.identitymanagementservice.common.keycloak;
+
+import jakarta.ws.rs.ProcessingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.admin.client.token.TokenManager;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakAdminHealthMonitorTest {
+
+    private static final String REALM = "test-realm";
+
+    @Mock private Keycloak keycloakAdmin;
+    @Mock private TokenManager tokenManager;
+    @Mock private RealmResource realmResource;
+    @Mock private UsersResource usersResource;
+
+    private KeycloakAdminHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new KeycloakAdminHealthMonitor(keycloakAdmin, REALM, 2);
+        when(keycloakAdmin.tokenManager()).thenReturn(tokenManager);
+    }
+
+    @Test
+    void probe_reportsUpWhenTokenAndRealmCallSucceed() {
+        when(keycloakAdmin.realm(REALM)).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.count()).thenReturn(42);
+
+        assertEquals(Status.UNKNOWN, monitor.health().getStatus());
+        assertTrue(monitor.isAvailable());
+
+        monitor.probe();
+
+        assertEquals(Status.UP, monitor.health().getStatus());
+        assertTrue(monitor.isAvailable());
+    }
+
+    @Test
+    void probe_reportsDownOnlyAfterConsecutiveFailures() {
+        when(tokenManager.getAccessToken()).thenThrow(new ProcessingException("Connection refused"));
+
+        monitor.probe();
+        assertTrue(monitor.isAvailable());
+
+        monitor.probe();
+        assertFalse(monitor.isAvailable());
+        assertEquals(Status.DOWN, monitor.health().getStatus());
+        assertEquals("Connection refused", monitor.health().getDetails().get("error"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.identitymanagementservice.common.keycloak;
+
+import com.example.identitymanagementservice.common.cache.CacheInvalidationBus;
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+import com.example.identitymanagementservice.model.Employee;
+import com.example.identitymanagementservice.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakUserIdResolverTest {
+
+    private static final String REALM = "test-realm";
+    private static final String EMPLOYEE_CODE = "EMP001";
+    private static final String USER_ID = "user-123";
+
+    @Mock private Keycloak keycloakAdmin;
+    @Mock private EmployeeRepository employeeRepository;
+    @Mock private EmployeeIdentityCache employeeIdentityCache;
+    @Mock private RealmResource realmResource;
+    @Mock private UsersResource usersResource;
+    @Mock private CacheInvalidationBus invalidationBus;
+    @Captor private ArgumentCaptor<Consumer<Collection<String>>> onKeys;
+
+    private KeycloakUserIdResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new KeycloakUserIdResolver(keycloakAdmin, employeeRepository, employeeIdentityCache, invalidationBus,
+                REALM, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void resolve_readsIdFromEmployeeTableAndCachesIt() {
+        Employee employee = new Employee();
+        employee.setEmployeeCode(EMPLOYEE_CODE);
+        employee.setKeycloakUserId(USER_ID);
+        when(employeeRepository.findById(EMPLOYEE_CODE)).thenReturn(Optional.of(employee));
+
+        assertEquals(USER_ID, resolver.resolve(EMPLOYEE_CODE));
+        assertEquals(USER_ID, resolver.resolve(EMPLOYEE_CODE));
+
+        verify(employeeRepository, times(1)).findById(EMPLOYEE_CODE);
+        verifyNoInteractions(keycloakAdmin);
+    }
+
+    @Test
+    void resolve_fallsBackToExactSearchAndWritesIdBack() {
+        Employee employee = new Employee();
+        employee.setEmployeeCode(EMPLOYEE_CODE);
+        when(employeeRepository.findById(EMPLOYEE_CODE)).thenReturn(Optional.of(employee));
+
+        UserRepresentation user = new UserRepresentation();
+        user.setId(USER_ID);
+        user.setUsername(EMPLOYEE_CODE.toLowerCase());
+        when(keycloakAdmin.realm(REALM)).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.search(EMPLOYEE_CODE, true)).thenReturn(List.of(user));
+
+        assertEquals(USER_ID, resolver.resolve(EMPLOYEE_CODE));
+
+        assertEquals(USER_ID, employee.getKeycloakUserId());
+        verify(employeeRepository).save(employee);
+        verify(employeeIdentityCache).evict(EMPLOYEE_CODE, USER_ID);
+    }
+
+    @Test
+    void evict_dropsCachedIdAndTellsOtherInstances() {
+        when(employeeRepository.findById(EMPLOYEE_CODE)).thenReturn(Optional.of(employee(USER_ID)));
+        resolver.resolve(EMPLOYEE_CODE);
+
+        resolver.evict(EMPLOYEE_CODE);
+        resolver.resolve(EMPLOYEE_CODE);
+
+        verify(employeeRepository, times(2)).findById(EMPLOYEE_CODE);
+        verify(invalidationBus).publish("keycloak-user-ids", List.of(EMPLOYEE_CODE));
+    }
+
+    @Test
+    void remoteInvalidation_dropsCachedId() {
+        verify(invalidationBus).subscribe(eq("keycloak-user-ids"), onKeys.capture(), any());
+        when(employeeRepository.findById(EMPLOYEE_CODE)).thenReturn(Optional.of(employee(USER_ID)));
+        resolver.resolve(EMPLOYEE_CODE);
+
+        onKeys.getValue().accept(List.of(EMPLOYEE_CODE));
+        resolver.resolve(EMPLOYEE_CODE);
+
+        verify(employeeRepository, times(2)).findById(EMPLOYEE_CODE);
+        verify(invalidationBus, never()).publish(any(), any());
+    }
+
+    @Test
+    void resolve_throwsNotFoundWhenNobodyKnowsTheUser() {
+        when(employeeRepository.findById(EMPLOYEE_CODE)).thenReturn(Optional.empty());
+        when(keycloakAdmin.realm(REALM)).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.search(EMPLOYEE_CODE, true)).thenReturn(List.of());
+
+        TimesheetException ex = assertThrows(TimesheetException.class, () -> resolver.resolve(EMPLOYEE_CODE));
+
+        assertEquals(NOT_FOUND_ERROR, ex.getErrorCode());
+        verify(employeeRepository, never()).save(any());
+    }
+
+    private static Employee employee(String keycloakUserId) {
+        Employee employee = new Employee();
+        employee.setEmployeeCode(EMPLOYEE_CODE);
+        employee.setKeycloakUserId(keycloakUserId);
+        return employee;
+    }
+}
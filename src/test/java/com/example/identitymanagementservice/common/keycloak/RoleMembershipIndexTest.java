@@ -0,0 +1,250 @@
+package com.example.identitymanagementservice.common.keycloak;
+
+import com.example.identitymanagementservice.common.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.GroupResource;
+import org.keycloak.admin.client.resource.GroupsResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleResource;
+import org.keycloak.admin.client.resource.RolesResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RoleMembershipIndexTest {
+
+    private static final String REALM = "test-realm";
+
+    @Mock private Keycloak keycloakAdmin;
+    @Mock private RealmResource realmResource;
+    @Mock private RolesResource rolesResource;
+    @Mock private RoleResource managerRole;
+    @Mock private RoleResource employeeRole;
+    @Mock private RoleResource defaultRole;
+    @Mock private CacheInvalidationBus invalidationBus;
+    @Captor private ArgumentCaptor<Consumer<Collection<String>>> onKeys;
+    @Captor private ArgumentCaptor<Runnable> onResync;
+
+    private RoleMembershipIndex index;
+    // Work handed to the reread executor, run by the test when it chooses
+    private final Deque<Runnable> handedOff = new ArrayDeque<>();
+
+    private final UserRepresentation manager = user("id-1", "mgr001", "Mary");
+    private final UserRepresentation employee = user("id-2", "emp001", "Eve");
+    private final UserRepresentation other = user("id-3", "emp002", "Otto");
+
+    @BeforeEach
+    void setUp() {
+        // Page size 2 forces a second page for the Employee role
+        index = new RoleMembershipIndex(keycloakAdmin, invalidationBus, REALM, 2, 10, handedOff::add);
+
+        when(keycloakAdmin.realm(REALM)).thenReturn(realmResource);
+        when(realmResource.roles()).thenReturn(rolesResource);
+        when(rolesResource.list()).thenReturn(List.of(
+                role("ReportingManager", true), role("Employee", false), role("offline_access", false)));
+        when(rolesResource.get("ReportingManager")).thenReturn(managerRole);
+        when(rolesResource.get("Employee")).thenReturn(employeeRole);
+        when(rolesResource.get("default-roles-" + REALM)).thenReturn(defaultRole);
+        when(defaultRole.getRealmRoleComposites()).thenReturn(Set.of(role("offline_access", false)));
+        when(managerRole.getUserMembers(0, 2)).thenReturn(List.of(manager));
+        when(managerRole.getRealmRoleComposites()).thenReturn(Set.of(role("Employee", false)));
+        when(employeeRole.getUserMembers(0, 2)).thenReturn(List.of(employee, other));
+        when(employeeRole.getUserMembers(2, 2)).thenReturn(List.of());
+    }
+
+    @Test
+    void warm_indexesPagedMembersAndExpandsComposites() {
+        assertFalse(index.isReady());
+
+        index.warm();
+
+        assertTrue(index.isReady());
+        assertEquals(Set.of("id-1"), index.membersOf("ReportingManager").keySet());
+        assertEquals(Set.of("id-1", "id-2", "id-3"), index.membersOf("Employee").keySet());
+        assertEquals(Optional.of(Set.of("ReportingManager", "Employee")), index.rolesOf("MGR001"));
+        assertEquals(Optional.of(Set.of("Employee")), index.rolesOf("emp001"));
+        assertEquals(Optional.empty(), index.rolesOf("unknown"));
+        verify(employeeRole).getUserMembers(2, 2);
+    }
+
+    @Test
+    void warm_indexesMembersOfMappedGroupsAndTheirSubgroups() {
+        GroupsResource groupsResource = mock(GroupsResource.class);
+        GroupResource managers = mock(GroupResource.class);
+        GroupResource leads = mock(GroupResource.class);
+        when(realmResource.groups()).thenReturn(groupsResource);
+        when(groupsResource.group("g-managers")).thenReturn(managers);
+        when(groupsResource.group("g-leads")).thenReturn(leads);
+        when(managerRole.getRoleGroups(0, 2)).thenReturn(Set.of(group("g-managers")));
+        when(managers.members(0, 2)).thenReturn(List.of());
+        when(managers.getSubGroups(0, 2, true)).thenReturn(List.of(group("g-leads")));
+        when(leads.members(0, 2)).thenReturn(List.of(other));
+        when(leads.getSubGroups(0, 2, true)).thenReturn(List.of());
+
+        index.warm();
+
+        assertEquals(Set.of("id-1", "id-3"), index.membersOf("ReportingManager").keySet());
+        assertEquals(Optional.of(Set.of("ReportingManager", "Employee")), index.rolesOf("emp002"));
+
+        // Removing a direct mapping leaves the one through the group in place
+        index.onRolesRemoved("id-3", List.of("ReportingManager"));
+        assertEquals(Optional.of(Set.of("ReportingManager", "Employee")), index.rolesOf("emp002"));
+    }
+
+    @Test
+    void defaultRoles_areAddedToEveryUserAndListedFromTheWholeRealm() {
+        when(defaultRole.getRealmRoleComposites())
+                .thenReturn(Set.of(role("offline_access", false), role("Timesheet", false)));
+        UsersResource usersResource = mock(UsersResource.class);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.list(0, 2)).thenReturn(List.of(manager, employee));
+        when(usersResource.list(2, 2)).thenReturn(List.of(other));
+
+        index.warm();
+
+        assertEquals(Optional.of(Set.of("Employee", "Timesheet")), index.rolesOf("emp001"));
+        assertEquals(Set.of("id-1", "id-2", "id-3"), index.membersOf("Timesheet").keySet());
+
+        // Served from the index; a newly provisioned user joins without another read of the realm
+        index.onRolesAssigned("id-4", "emp003", List.of("Employee"));
+        assertEquals(Set.of("id-1", "id-2", "id-3", "id-4"), index.membersOf("Timesheet").keySet());
+        verify(usersResource, times(1)).list(0, 2);
+    }
+
+    @Test
+    void onRolesAssignedAndRemoved_updateSnapshotImmediately() {
+        index.warm();
+
+        index.onRolesAssigned("id-2", "emp001", List.of("ReportingManager"));
+        assertEquals("Eve", index.membersOf("ReportingManager").get("id-2").firstName());
+        assertEquals(Optional.of(Set.of("ReportingManager", "Employee")), index.rolesOf("emp001"));
+
+        index.onRolesRemoved("id-1", List.of("ReportingManager"));
+        assertFalse(index.membersOf("ReportingManager").containsKey("id-1"));
+        assertEquals(Optional.empty(), index.rolesOf("mgr001"));
+
+        verify(invalidationBus, times(2)).publish("role-memberships", List.of("ReportingManager"));
+    }
+
+    @Test
+    void remoteInvalidation_rereadsOnlyTheNamedRoles() {
+        verify(invalidationBus).subscribe(eq("role-memberships"), onKeys.capture(), onResync.capture());
+        index.warm();
+        // Another instance made emp002 a manager
+        when(managerRole.getUserMembers(0, 2)).thenReturn(List.of(manager, other));
+
+        onKeys.getValue().accept(List.of("ReportingManager"));
+        // The listener thread only hands the roles off; Keycloak is read on the executor
+        verify(managerRole, times(1)).getUserMembers(0, 2);
+        runHandedOff();
+
+        assertEquals(Set.of("id-1", "id-3"), index.membersOf("ReportingManager").keySet());
+        assertEquals(Optional.of(Set.of("ReportingManager", "Employee")), index.rolesOf("emp002"));
+        verify(employeeRole, times(1)).getUserMembers(0, 2);
+        verify(invalidationBus, never()).publish(any(), any());
+    }
+
+    @Test
+    void refresh_doesNotUndoAPatchThatLandsWhileTheRoleIsBeingRead() {
+        verify(invalidationBus).subscribe(eq("role-memberships"), onKeys.capture(), onResync.capture());
+        when(managerRole.getUserMembers(0, 2))
+                .thenReturn(List.of(manager))
+                .thenAnswer(invocation -> {
+                    // emp001 is promoted here after Keycloak already answered without them
+                    index.onRolesAssigned("id-2", "emp001", List.of("ReportingManager"));
+                    return List.of(manager);
+                })
+                .thenReturn(List.of(manager, employee));
+        index.warm();
+
+        onKeys.getValue().accept(List.of("ReportingManager"));
+        runHandedOff();
+
+        assertEquals(Set.of("id-1", "id-2"), index.membersOf("ReportingManager").keySet());
+        verify(managerRole, times(3)).getUserMembers(0, 2);
+    }
+
+    @Test
+    void remoteInvalidation_whenTheRereadFails_leavesTheRolesForTheNextRefresh() {
+        verify(invalidationBus).subscribe(eq("role-memberships"), onKeys.capture(), onResync.capture());
+        index.warm();
+        when(managerRole.getUserMembers(0, 2))
+                .thenThrow(new IllegalStateException("Keycloak unreachable"))
+                .thenReturn(List.of(manager, other));
+
+        onKeys.getValue().accept(List.of("ReportingManager"));
+        runHandedOff();
+        assertEquals(Set.of("id-1"), index.membersOf("ReportingManager").keySet());
+
+        index.refresh();
+
+        assertEquals(Set.of("id-1", "id-3"), index.membersOf("ReportingManager").keySet());
+    }
+
+    @Test
+    void resync_rebuildsWholeIndexOnNextRefresh() {
+        verify(invalidationBus).subscribe(eq("role-memberships"), onKeys.capture(), onResync.capture());
+        index.warm();
+
+        onResync.getValue().run();
+        index.refresh();
+
+        verify(employeeRole, times(2)).getUserMembers(0, 2);
+        verify(managerRole, times(2)).getUserMembers(0, 2);
+    }
+
+    private void runHandedOff() {
+        while (!handedOff.isEmpty()) {
+            handedOff.poll().run();
+        }
+    }
+
+    private static RoleRepresentation role(String name, boolean composite) {
+        RoleRepresentation role = new RoleRepresentation();
+        role.setName(name);
+        role.setComposite(composite);
+        return role;
+    }
+
+    private static GroupRepresentation group(String id) {
+        GroupRepresentation group = new GroupRepresentation();
+        group.setId(id);
+        return group;
+    }
+
+    private static UserRepresentation user(String id, String username, String firstName) {
+        UserRepresentation user = new UserRepresentation();
+        user.setId(id);
+        user.setUsername(username);
+        user.setFirstName(firstName);
+        return user;
+    }
+}
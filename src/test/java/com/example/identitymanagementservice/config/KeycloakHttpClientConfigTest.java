@@ -0,0 +1,113 @@
+package com.example.identitymanagementservice.config;
+
+import com.example.identitymanagementservice.common.config.AuthorizationProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.config.Configurable;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeycloakHttpClientConfigTest {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(150);
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(300);
+    private static final Duration POOL_ACQUIRE_TIMEOUT = Duration.ofMillis(100);
+
+    private final KeycloakHttpClientConfig config = new KeycloakHttpClientConfig();
+    private final CountDownLatch releaseSlowResponses = new CountDownLatch(1);
+
+    private AuthorizationProperties properties;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private HttpServer slowServer;
+    private ExecutorService serverThreads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new AuthorizationProperties();
+        properties.getHttp().setConnectTimeout(CONNECT_TIMEOUT);
+        properties.getHttp().setReadTimeout(READ_TIMEOUT);
+        properties.getHttp().setPoolAcquireTimeout(POOL_ACQUIRE_TIMEOUT);
+
+        PoolingHttpClientConnectionManager connectionManager = config.keycloakConnectionManager(properties);
+        httpClient = config.keycloakHttpClient(connectionManager, properties);
+        restTemplate = config.keycloakRestTemplate(httpClient);
+
+        // Accepts the request but doesn't answer until the test is over
+        serverThreads = Executors.newCachedThreadPool();
+        slowServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        slowServer.setExecutor(serverThreads);
+        slowServer.createContext("/", exchange -> {
+            try {
+                releaseSlowResponses.await(10, TimeUnit.SECONDS);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        slowServer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        releaseSlowResponses.countDown();
+        slowServer.stop(0);
+        serverThreads.shutdownNow();
+        httpClient.close();
+    }
+
+    @Test
+    void keycloakRestTemplate_usesThePooledClientWithConfiguredTimeouts() {
+        HttpComponentsClientHttpRequestFactory factory =
+                assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, restTemplate.getRequestFactory());
+        assertSame(httpClient, factory.getHttpClient());
+
+        RequestConfig requestConfig = ((Configurable) httpClient).getConfig();
+        assertEquals(Timeout.ofMilliseconds(POOL_ACQUIRE_TIMEOUT.toMillis()),
+                requestConfig.getConnectionRequestTimeout());
+        assertEquals(Timeout.ofMilliseconds(READ_TIMEOUT.toMillis()), requestConfig.getResponseTimeout());
+
+        ConnectionConfig connectionConfig = KeycloakHttpClientConfig.connectionConfig(properties.getHttp());
+        assertEquals(Timeout.ofMilliseconds(CONNECT_TIMEOUT.toMillis()), connectionConfig.getConnectTimeout());
+        assertEquals(Timeout.ofMilliseconds(READ_TIMEOUT.toMillis()), connectionConfig.getSocketTimeout());
+    }
+
+    @Test
+    void keycloakRestTemplate_givesUpOnASlowServerWithinTheReadTimeout() {
+        String url = "http://127.0.0.1:" + slowServer.getAddress().getPort()
+                + "/realms/test/protocol/openid-connect/token";
+
+        long started = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> restTemplate.getForObject(url, String.class));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        // Timer granularity aside, it must have waited for the response timeout rather than failed fast
+        assertTrue(elapsed.compareTo(READ_TIMEOUT.minusMillis(50)) >= 0, "gave up too early: " + elapsed);
+        // Generous upper bound for slow CI machines; without the timeout the call would wait the full 10 seconds
+        assertTrue(elapsed.compareTo(READ_TIMEOUT.plusSeconds(2)) < 0, "did not time out in time: " + elapsed);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.identitymanagementservice.repository;
+
+import com.example.identitymanagementservice.dto.request.pagenationdto.FilterRequest;
+import com.example.identitymanagementservice.model.Employee;
+import com.example.identitymanagementservice.utils.FilterSpecificationBuilder;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs each EmployeeRepository finder against a migrated, analyzed 100k-row table and asserts that Postgres plans
+ * the SQL Hibernate actually generated with an index scan. Skipped when Docker isn't available.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.identitymanagementservice.repository.EmployeeRepositoryQueryPlanTest$LastEmployeeQuery")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+// Seeded rows must be committed and outlive each test, so no test-managed transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmployeeRepositoryQueryPlanTest {
+
+    private static final int ROWS = 100_000;
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        Integer existing = jdbcTemplate.queryForObject("select count(*) from employee", Integer.class);
+        if (existing != null && existing >= ROWS) {
+            return;
+        }
+        // 1000 managers with 100 reports each; every 10th employee inactive
+        jdbcTemplate.update("""
+                insert into employee (employee_code, keycloak_user_id, first_name, last_name, email, employee_type,
+                                      manager_code, is_active)
+                select 'E' || i, 'kc-' || i, 'First' || i, 'Last' || i, 'user' || i || '@example.com', 'FULL_TIME',
+                       'E' || (i % 1000), i % 10 <> 0
+                from generate_series(1, ?) as i
+                """, ROWS);
+        jdbcTemplate.execute("analyze employee");
+    }
+
+    @Test
+    void findByEmailAndIsActiveTrue_usesEmailIndex() {
+        employeeRepository.findByEmailAndIsActiveTrue("user54321@example.com");
+
+        assertIndexScan("uk_employee_email", "user54321@example.com");
+    }
+
+    @Test
+    void findByEmployeeCodeAndIsActiveTrue_usesPrimaryKey() {
+        employeeRepository.findByEmployeeCodeAndIsActiveTrue("E54321");
+
+        assertIndexScan("employee_pkey", "E54321");
+    }
+
+    @Test
+    void findIdentityByEmployeeCode_usesPrimaryKey() {
+        employeeRepository.findIdentityByEmployeeCode("E54321");
+
+        assertIndexScan("employee_pkey", "E54321");
+    }
+
+    @Test
+    void findByKeycloakUserIdAndIsActiveTrue_usesPartialIndex() {
+        employeeRepository.findByKeycloakUserIdAndIsActiveTrue("kc-54321");
+
+        assertIndexScan("idx_employee_keycloak_user_id_active", "kc-54321");
+    }
+
+    @Test
+    void findIdentitiesByManagerCode_usesPartialIndex() {
+        employeeRepository.findIdentitiesByManagerCode("E42");
+
+        assertIndexScan("idx_employee_manager_code_active", "E42");
+    }
+
+    @Test
+    void findByEmailIn_usesEmailIndex() {
+        employeeRepository.findByEmailIn(List.of("user1@example.com", "user2@example.com"));
+
+        assertIndexScan("uk_employee_email", "user1@example.com", "user2@example.com");
+    }
+
+    @Test
+    void findIdentitiesByEmployeeCodesOrKeycloakUserIds_usesBothIndexes() {
+        employeeRepository.findIdentitiesByEmployeeCodesOrKeycloakUserIds(List.of("E1", "E2"), List.of("kc-3"));
+
+        // Both halves of the OR probe an index (a BitmapOr), rather than one sequential scan
+        assertIndexScan("employee_pkey", "E1", "E2", "kc-3");
+        assertIndexScan("idx_employee_keycloak_user_id_active", "E1", "E2", "kc-3");
+    }
+
+    @Test
+    void findReports_walksDownThroughManagerCodeIndex() {
+        // E42 is its own manager in the seed data; the walk must not return it or loop
+        assertTrue(employeeRepository.findReports("E42", 5).stream()
+                .allMatch(report -> report.getDepth() == 1 && !report.getEmployeeCode().equals("E42")));
+
+        assertIndexScan("idx_employee_manager_code_active", "E42", "E42", "E42", "5");
+    }
+
+    @Test
+    void isInManagerChain_walksUpThroughPrimaryKey() {
+        assertTrue(employeeRepository.isInManagerChain("E1042", "E42"));
+
+        assertIndexScan("employee_pkey", "E1042", "E42");
+    }
+
+    @Test
+    void searchFilter_usesTrigramIndex() {
+        FilterRequest filter = new FilterRequest();
+        filter.setField("lastName");
+        filter.setOperator(FilterSpecificationBuilder.SEARCH);
+        filter.setValue("Last54321");
+
+        employeeRepository.findAll(new FilterSpecificationBuilder<Employee>().build(List.of(filter)));
+
+        assertIndexScan("idx_employee_last_name_trgm", "last54321");
+    }
+
+    /**
+     * Prepares the captured statement and explains an execution with the given parameter values, so the planner
+     * sees the same SQL and values the finder used.
+     */
+    private void assertIndexScan(String indexName, String... parameters) {
+        String sql = LastEmployeeQuery.sql;
+        assertNotNull(sql, "finder issued no employee query");
+
+        StringBuilder numbered = new StringBuilder();
+        Matcher matcher = PARAMETER.matcher(sql);
+        int index = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + (++index));
+        }
+        matcher.appendTail(numbered);
+
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < index; i++) {
+            // Hibernate pads IN lists by repeating the last value
+            String value = parameters[Math.min(i, parameters.length - 1)];
+            arguments.add("'" + value.replace("'", "''") + "'");
+        }
+
+        // PREPARE and EXECUTE must share a connection
+        String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("prepare finder as " + numbered);
+                try {
+                    List<String> lines = new ArrayList<>();
+                    try (ResultSet rs = statement.executeQuery(
+                            "explain execute finder(" + String.join(", ", arguments) + ")")) {
+                        while (rs.next()) {
+                            lines.add(rs.getString(1));
+                        }
+                    }
+                    return String.join("\n", lines);
+                } finally {
+                    statement.execute("deallocate finder");
+                }
+            }
+        });
+
+        assertTrue(plan.contains("Index Scan") || plan.contains("Index Only Scan"), plan);
+        assertTrue(plan.contains(indexName), plan);
+    }
+
+    public static class LastEmployeeQuery implements StatementInspector {
+
+        private static volatile String sql;
+
+        @Override
+        public String inspect(String statement) {
+            if (statement.contains("from employee")) {
+                sql = statement;
+            }
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.identitymanagementservice.service;
+
+import com.example.identitymanagementservice.common.keycloak.KeycloakAdminHealthMonitor;
+import com.example.identitymanagementservice.dto.request.EmployeeRequestDto;
+import com.example.identitymanagementservice.enums.BulkImportFormat;
+import com.example.identitymanagementservice.exceptions.TimesheetException;
+import com.example.identitymanagementservice.model.Employee;
+import com.example.identitymanagementservice.repository.EmployeeRepository;
+import com.example.identitymanagementservice.service.service.impl.BulkOnboardingServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.identitymanagementservice.common.constants.ErrorCode.KEYCLOAK_USER_CREATION_FAILED;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.KEYCLOAK_ADMIN_CONNECTION_FAILED;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.WELCOME_EMAIL_QUEUE_FAILED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkOnboardingServiceImplTest {
+
+    private static final String CSV_HEADER = "employeeCode,email,firstName,lastName\n";
+
+    @Mock
+    private KeycloakCreateUserService keycloakCreateUserService;
+
+    @Mock
+    private KeycloakAdminHealthMonitor keycloakAdminHealthMonitor;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ValidatorFactory validatorFactory;
+    private BulkOnboardingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        service = new BulkOnboardingServiceImpl(keycloakCreateUserService, keycloakAdminHealthMonitor,
+                employeeRepository, entityManager, transactionTemplate, validatorFactory.getValidator(),
+                objectMapper, 100, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+        validatorFactory.close();
+    }
+
+    @Test
+    void onboard_createsValidRowsAndReportsInvalidOnesInInputOrder() throws IOException {
+        when(employeeRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(employeeRepository.findByEmailIn(anyCollection())).thenReturn(List.of());
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
+        when(keycloakCreateUserService.provisionKeycloakUser(any()))
+                .thenReturn(Map.of("userId", "kc-1", "temporaryPassword", "secret"));
+
+        List<JsonNode> results = onboardCsv(CSV_HEADER
+                + "EMP001,alice@example.com,Alice,Smith\n"
+                + "EMP002,,Bob,\"Jones, Jr\"\n");
+
+        assertEquals(2, results.size());
+        assertEquals(1, results.get(0).get("row").asInt());
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("kc-1", results.get(0).get("keycloakUserId").asText());
+        assertTrue(!results.get(0).has("temporaryPassword"));
+        assertEquals(2, results.get(1).get("row").asInt());
+        assertEquals("FAILED", results.get(1).get("status").asText());
+        assertEquals("Email is required", results.get(1).get("message").asText());
+
+        verify(entityManager, times(1)).persist(argThat(e -> "EMP001".equals(((Employee) e).getEmployeeCode())));
+        verify(employeeRepository).updateKeycloakUserId("EMP001", "kc-1");
+        verify(keycloakCreateUserService).sendWelcomeEmail(
+                argThat(dto -> "EMP001".equals(dto.getEmployeeCode())), eq("secret"));
+    }
+
+    @Test
+    void onboard_rejectsDuplicatesWithinUploadAndExistingEmployees() throws IOException {
+        Employee existing = new Employee();
+        existing.setEmployeeCode("EMP001");
+        when(employeeRepository.findAllById(anyIterable())).thenReturn(List.of(existing));
+        when(employeeRepository.findByEmailIn(anyCollection())).thenReturn(List.of());
+
+        List<JsonNode> results = onboardCsv(CSV_HEADER
+                + "EMP001,alice@example.com,Alice,Smith\n"
+                + "emp001,other@example.com,Al,Smith\n");
+
+        assertEquals("Employee already exists with EMP001", results.get(0).get("message").asText());
+        assertEquals("Duplicate employeeCode in upload: emp001", results.get(1).get("message").asText());
+        verifyNoInteractions(entityManager, keycloakCreateUserService);
+    }
+
+    @Test
+    void onboard_whenKeycloakProvisioningFails_removesTheRowAgain() throws IOException {
+        when(employeeRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(employeeRepository.findByEmailIn(anyCollection())).thenReturn(List.of());
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
+        when(keycloakCreateUserService.provisionKeycloakUser(any()))
+                .thenThrow(new TimesheetException(KEYCLOAK_USER_CREATION_FAILED, "Keycloak said no"));
+
+        List<JsonNode> results = onboardNdjson(
+                "{\"employeeCode\":\"EMP001\",\"email\":\"alice@example.com\",\"firstName\":\"Alice\",\"lastName\":\"Smith\"}\n");
+
+        assertEquals("FAILED", results.get(0).get("status").asText());
+        assertEquals("Keycloak said no", results.get(0).get("message").asText());
+        verify(employeeRepository).deleteAllByIdInBatch(List.of("EMP001"));
+        verify(keycloakCreateUserService, never()).sendWelcomeEmail(any(), any());
+    }
+
+    @Test
+    void onboard_whenWelcomeEmailCannotBeQueued_undoesOnlyThatRow() throws IOException {
+        when(employeeRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(employeeRepository.findByEmailIn(anyCollection())).thenReturn(List.of());
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
+        when(keycloakCreateUserService.provisionKeycloakUser(any())).thenAnswer(invocation -> {
+            String suffix = ((EmployeeRequestDto) invocation.getArgument(0)).getEmployeeCode().substring(5);
+            return Map.of("userId", "kc-" + suffix, "temporaryPassword", "secret-" + suffix);
+        });
+        doAnswer(invocation -> {
+            if ("secret-2".equals(invocation.getArgument(1))) {
+                throw new IllegalStateException("outbox unavailable");
+            }
+            return null;
+        }).when(keycloakCreateUserService).sendWelcomeEmail(any(), any());
+
+        List<JsonNode> results = onboardCsv(CSV_HEADER
+                + "EMP001,alice@example.com,Alice,Smith\n"
+                + "EMP002,bob@example.com,Bob,Jones\n");
+
+        assertEquals("CREATED", results.get(0).get("status").asText());
+        assertEquals("kc-1", results.get(0).get("keycloakUserId").asText());
+        assertEquals("FAILED", results.get(1).get("status").asText());
+        assertEquals(WELCOME_EMAIL_QUEUE_FAILED, results.get(1).get("message").asText());
+
+        verify(keycloakCreateUserService).removeKeycloakUser("EMP002", "kc-2");
+        verify(keycloakCreateUserService, never()).removeKeycloakUser("EMP001", "kc-1");
+        verify(employeeRepository).deleteAllByIdInBatch(List.of("EMP002"));
+    }
+
+    @Test
+    void onboard_whenKeycloakAdminIsDown_failsRowsWithoutInserting() throws IOException {
+        when(employeeRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(employeeRepository.findByEmailIn(anyCollection())).thenReturn(List.of());
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(false);
+
+        List<JsonNode> results = onboardCsv(CSV_HEADER + "EMP001,alice@example.com,Alice,Smith\n");
+
+        assertEquals(KEYCLOAK_ADMIN_CONNECTION_FAILED, results.get(0).get("message").asText());
+        verifyNoInteractions(entityManager, keycloakCreateUserService);
+    }
+
+    @Test
+    void onboard_whenHeaderIsMissingColumns_writesSingleFailure() throws IOException {
+        List<JsonNode> results = onboardCsv("employeeCode,email\nEMP001,alice@example.com\n");
+
+        assertEquals(1, results.size());
+        assertEquals(0, results.get(0).get("row").asInt());
+        assertTrue(results.get(0).get("message").asText().contains("firstname"));
+        verifyNoInteractions(employeeRepository, entityManager, keycloakCreateUserService);
+    }
+
+    @Test
+    void onboard_malformedJsonLineFailsOnlyThatRow() throws IOException {
+        List<JsonNode> results = onboardNdjson("{not json\n");
+
+        assertEquals("FAILED", results.get(0).get("status").asText());
+        assertTrue(results.get(0).get("message").asText().startsWith("Malformed JSON"));
+        verifyNoInteractions(employeeRepository, entityManager, keycloakCreateUserService);
+    }
+
+    private List<JsonNode> onboardCsv(String body) throws IOException {
+        return onboard(body, BulkImportFormat.CSV);
+    }
+
+    private List<JsonNode> onboardNdjson(String body) throws IOException {
+        return onboard(body, BulkImportFormat.NDJSON);
+    }
+
+    private List<JsonNode> onboard(String body, BulkImportFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.onboard(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, output);
+
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.identitymanagementservice.service;
 
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
+import com.example.identitymanagementservice.dto.request.UserBatchLookupRequest;
 import com.example.identitymanagementservice.dto.request.UserIdentityDto;
+import com.example.identitymanagementservice.dto.request.pagenationdto.response.PagedResponse;
+import com.example.identitymanagementservice.dto.request.pagenationdto.FilterRequest;
+import com.example.identitymanagementservice.dto.request.response.UserBatchLookupResponse;
+import com.example.identitymanagementservice.dto.request.response.UserResponseDto;
+import com.example.identitymanagementservice.enums.TotalCountMode;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
 import com.example.identitymanagementservice.model.Employee;
 import com.example.identitymanagementservice.repository.EmployeeRepository;
 import com.example.identitymanagementservice.service.service.impl.EmployeeServiceImpl;
 import com.example.identitymanagementservice.utils.FilterSpecificationBuilder;
+import com.example.identitymanagementservice.utils.KeysetCursor;
 import com.example.identitymanagementservice.utils.SortUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,18 +24,32 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorCode.VALIDATION_ERROR;
 import static com.example.identitymanagementservice.common.constants.ErrorMessage.USER_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,6 +65,12 @@ class EmployeeServiceImplTest {
     @Mock
     private EmployeeRepository employeeRepository;
 
+    @Mock
+    private EmployeeIdentityCache employeeIdentityCache;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @Spy
     private FilterSpecificationBuilder<Employee> filterSpecificationBuilder = new FilterSpecificationBuilder<>();
 
@@ -77,10 +107,8 @@ class EmployeeServiceImplTest {
 
     @Test
     void testGetUserByEmployeeCodedb_UserFound() {
-        Employee employee = createEmployeeFromDto(userDto);
-
-        when(employeeRepository.findByEmployeeCodeAndIsActiveTrue(EMPLOYEE_CODE))
-                .thenReturn(Optional.of(employee));
+        when(employeeIdentityCache.getByEmployeeCode(EMPLOYEE_CODE))
+                .thenReturn(Optional.of(userDto));
 
         UserIdentityDto dto = employeeService.getUserByEmployeeCodedb(EMPLOYEE_CODE);
 
@@ -96,7 +124,7 @@ class EmployeeServiceImplTest {
 
     @Test
     void testGetUserByEmployeeCodedb_UserNotFound() {
-        when(employeeRepository.findByEmployeeCodeAndIsActiveTrue(EMPLOYEE_CODE))
+        when(employeeIdentityCache.getByEmployeeCode(EMPLOYEE_CODE))
                 .thenReturn(Optional.empty());
 
         TimesheetException ex = assertThrows(TimesheetException.class,
@@ -116,6 +144,7 @@ class EmployeeServiceImplTest {
 
         assertFalse(employee.isActive());
         verify(employeeRepository).save(employee);
+        verify(employeeIdentityCache).evict(EMPLOYEE_CODE, KEYCLOAK_USER_ID);
     }
 
     @Test
@@ -131,10 +160,8 @@ class EmployeeServiceImplTest {
 
     @Test
     void testGetUserByKeycloakUserId_UserFound() {
-        Employee employee = createEmployeeFromDto(userDto);
-
-        when(employeeRepository.findByKeycloakUserIdAndIsActiveTrue(KEYCLOAK_USER_ID))
-                .thenReturn(Optional.of(employee));
+        when(employeeIdentityCache.getByKeycloakUserId(KEYCLOAK_USER_ID))
+                .thenReturn(Optional.of(userDto));
 
         UserIdentityDto dto = employeeService.getUserByKeycloakUserId(KEYCLOAK_USER_ID);
 
@@ -145,7 +172,7 @@ class EmployeeServiceImplTest {
 
     @Test
     void testGetUserByKeycloakUserId_UserNotFound() {
-        when(employeeRepository.findByKeycloakUserIdAndIsActiveTrue(KEYCLOAK_USER_ID))
+        when(employeeIdentityCache.getByKeycloakUserId(KEYCLOAK_USER_ID))
                 .thenReturn(Optional.empty());
 
         TimesheetException ex = assertThrows(TimesheetException.class,
@@ -156,28 +183,236 @@ class EmployeeServiceImplTest {
     }
 
     @Test
-    void testGetAllUsersList_Success() {
-        Employee employee = createEmployeeFromDto(userDto);
+    void testGetUsersBatch_splitsFoundAndMissingKeys() {
+        when(employeeRepository.findIdentitiesByEmployeeCodesOrKeycloakUserIds(
+                eq(Set.of(EMPLOYEE_CODE, "E404")), eq(Set.of(KEYCLOAK_USER_ID, "kc-404"))))
+                .thenReturn(List.of(userDto));
+
+        UserBatchLookupResponse response = employeeService.getUsersBatch(new UserBatchLookupRequest(
+                Arrays.asList(EMPLOYEE_CODE, "E404", EMPLOYEE_CODE, " ", null),
+                List.of(KEYCLOAK_USER_ID, "kc-404")));
+
+        // Requested under both keys, returned once
+        assertEquals(List.of(userDto), response.getFound());
+        assertEquals(List.of("E404"), response.getMissingEmployeeCodes());
+        assertEquals(List.of("kc-404"), response.getMissingKeycloakUserIds());
+    }
 
-        when(employeeRepository.findAllByIsActiveTrue()).thenReturn(List.of(employee));
+    @Test
+    void testGetUsersBatch_withoutKeysIsRejected() {
+        TimesheetException ex = assertThrows(TimesheetException.class,
+                () -> employeeService.getUsersBatch(new UserBatchLookupRequest(List.of(" "), null)));
 
-        List<Map<String, String>> result = employeeService.getAllUsersList();
+        assertEquals(VALIDATION_ERROR, ex.getErrorCode());
+        verify(employeeRepository, never()).findIdentitiesByEmployeeCodesOrKeycloakUserIds(any(), any());
+    }
 
-        assertEquals(1, result.size());
-        assertEquals(userDto.getEmployeeCode(), result.get(0).get("employeeCode"));
-        assertEquals(userDto.getFirstName(), result.get(0).get("firstName"));
+    @Test
+    void testExportAllUsers_writesOneJsonLinePerEmployee() throws IOException {
+        when(employeeRepository.streamAllActiveUsers()).thenReturn(Stream.of(user("E1"), user("E2")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        employeeService.exportAllUsers(output, true);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("E1", objectMapper.readTree(lines[0]).get("employeeCode").asText());
+        assertEquals(userDto.getFirstName(), objectMapper.readTree(lines[1]).get("firstName").asText());
+        assertTrue(output.toString(StandardCharsets.UTF_8).endsWith("}\n"));
     }
 
     @Test
-    void testGetActiveEmployeesUnderManager_Success() {
-        Employee employee = createEmployeeFromDto(userDto);
+    void testExportAllUsers_writesJsonArray() throws IOException {
+        when(employeeRepository.streamAllActiveUsers()).thenReturn(Stream.of(user("E1"), user("E2")));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
 
-        when(employeeRepository.findByManagerCodeAndIsActiveTrue("M123"))
-                .thenReturn(List.of(employee));
+        employeeService.exportAllUsers(output, false);
+
+        JsonNode users = objectMapper.readTree(output.toByteArray());
+        assertTrue(users.isArray());
+        assertEquals(2, users.size());
+        assertEquals("E2", users.get(1).get("employeeCode").asText());
+    }
+
+    @Test
+    void testExportAllUsers_noEmployeesWritesEmptyArray() throws IOException {
+        when(employeeRepository.streamAllActiveUsers()).thenReturn(Stream.empty());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        employeeService.exportAllUsers(output, false);
+
+        assertEquals("[]", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetActiveEmployeesUnderManager_Success() {
+        when(employeeRepository.findIdentitiesByManagerCode("M123"))
+                .thenReturn(List.of(userDto));
 
         List<UserIdentityDto> result = employeeService.getActiveEmployeesUnderManager("M123");
 
         assertEquals(1, result.size());
         assertEquals(userDto.getEmployeeCode(), result.get(0).getEmployeeCode());
     }
+
+    @Test
+    void testGetAllUsers_offsetPageCarriesNextCursor() {
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), eq(0L), eq(3)))
+                .thenReturn(List.of(user("E1"), user("E2"), user("E3")));
+        when(employeeRepository.count(any(Specification.class))).thenReturn(5L);
+
+        PagedResponse<UserResponseDto> result = employeeService.getAllUsers(0, 2, null, null, List.of(), List.of());
+
+        assertEquals(5L, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+        assertFalse(result.isLast());
+        Sort sort = Sort.by("employeeCode");
+        assertEquals(List.of("E2"), KeysetCursor.decode(result.getNextCursor(), sort));
+    }
+
+    @Test
+    void testGetAllUsers_cursorPageSeeksWithoutCounting() {
+        String cursor = KeysetCursor.encode(Sort.by("employeeCode"), user("E2"));
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), eq(0L), eq(3)))
+                .thenReturn(List.of(user("E3"), user("E4"), user("E5")));
+
+        PagedResponse<UserResponseDto> result = employeeService.getAllUsers(0, 2, cursor, null, List.of(), List.of());
+
+        assertEquals(List.of("E3", "E4"), result.getContent().stream().map(UserResponseDto::getEmployeeCode).toList());
+        assertNull(result.getTotalElements());
+        assertFalse(result.isLast());
+        assertEquals(List.of("E4"), KeysetCursor.decode(result.getNextCursor(), Sort.by("employeeCode")));
+        verify(employeeRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetAllUsers_lastCursorPageHasNoNextCursor() {
+        String cursor = KeysetCursor.encode(Sort.by("employeeCode"), user("E4"));
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), anyLong(), anyInt()))
+                .thenReturn(List.of(user("E5")));
+
+        PagedResponse<UserResponseDto> result = employeeService.getAllUsers(0, 2, cursor, null, List.of(), List.of());
+
+        assertTrue(result.isLast());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testGetAllUsers_cursorFromDifferentSortIsRejected() {
+        String cursor = KeysetCursor.encode(Sort.by("lastName").and(Sort.by("employeeCode")), user("E2"));
+
+        TimesheetException ex = assertThrows(TimesheetException.class,
+                () -> employeeService.getAllUsers(0, 2, cursor, null, List.of(), List.of()));
+
+        assertEquals(VALIDATION_ERROR, ex.getErrorCode());
+        assertEquals(KeysetCursor.INVALID_CURSOR, ex.getMessage());
+    }
+
+    @Test
+    void testGetAllUsers_malformedCursorIsRejected() {
+        TimesheetException ex = assertThrows(TimesheetException.class,
+                () -> employeeService.getAllUsers(0, 2, "not-a-cursor", null, List.of(), List.of()));
+
+        assertEquals(VALIDATION_ERROR, ex.getErrorCode());
+    }
+
+    @Test
+    void testGetAllUsers_totalNoneFetchesOneExtraRowInsteadOfCounting() {
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), eq(2L), eq(3)))
+                .thenReturn(List.of(user("E3"), user("E4"), user("E5")));
+
+        PagedResponse<UserResponseDto> result =
+                employeeService.getAllUsers(2, 2, null, TotalCountMode.NONE, List.of(), List.of());
+
+        assertEquals(List.of("E3", "E4"), result.getContent().stream().map(UserResponseDto::getEmployeeCode).toList());
+        assertEquals(1, result.getPage());
+        assertNull(result.getTotalElements());
+        assertNull(result.getTotalPages());
+        assertFalse(result.isLast());
+        assertEquals(List.of("E4"), KeysetCursor.decode(result.getNextCursor(), Sort.by("employeeCode")));
+        verify(employeeRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void testGetAllUsers_totalApproximateUsesPlannerEstimate() {
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), anyLong(), anyInt()))
+                .thenReturn(List.of(user("E1")));
+        when(employeeRepository.estimateRowCount()).thenReturn(1200L);
+
+        PagedResponse<UserResponseDto> result =
+                employeeService.getAllUsers(0, 2, null, TotalCountMode.APPROXIMATE, List.of(), List.of());
+
+        assertTrue(result.isLast());
+        assertEquals(1200L, result.getTotalElements());
+        assertTrue(result.getTotalApproximate());
+    }
+
+    @Test
+    void testGetAllUsers_totalApproximateIsOmittedForFilteredListing() {
+        FilterRequest filter = new FilterRequest();
+        filter.setField("firstName");
+        filter.setOperator("eq");
+        filter.setValue("John");
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), anyLong(), anyInt()))
+                .thenReturn(List.of(user("E1")));
+
+        PagedResponse<UserResponseDto> result =
+                employeeService.getAllUsers(0, 2, null, TotalCountMode.APPROXIMATE, List.of(filter), List.of());
+
+        assertNull(result.getTotalElements());
+        assertNull(result.getTotalApproximate());
+        verify(employeeRepository, never()).estimateRowCount();
+    }
+
+    @Test
+    void testGetAllUsers_cursorPageCountsWhenTotalExactRequested() {
+        String cursor = KeysetCursor.encode(Sort.by("employeeCode"), user("E4"));
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), anyLong(), anyInt()))
+                .thenReturn(List.of(user("E5")));
+        when(employeeRepository.count(any(Specification.class))).thenReturn(5L);
+
+        PagedResponse<UserResponseDto> result =
+                employeeService.getAllUsers(0, 2, cursor, TotalCountMode.EXACT, List.of(), List.of());
+
+        assertEquals(5L, result.getTotalElements());
+    }
+
+    @Test
+    void testGetAllUsers_searchFilterRanksThroughSliceQuery() {
+        FilterRequest filter = new FilterRequest();
+        filter.setField("firstName");
+        filter.setOperator("search");
+        filter.setValue("Jon");
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), eq(0L), eq(3)))
+                .thenReturn(List.of(user("E7"), user("E2"), user("E9")));
+        when(employeeRepository.count(any(Specification.class))).thenReturn(3L);
+
+        PagedResponse<UserResponseDto> result =
+                employeeService.getAllUsers(0, 2, null, null, List.of(filter), List.of());
+
+        // Keeps the repository's (similarity) order, counts, and offers no cursor for a ranked listing
+        assertEquals(List.of("E7", "E2"), result.getContent().stream().map(UserResponseDto::getEmployeeCode).toList());
+        assertEquals(3L, result.getTotalElements());
+        assertEquals(2, result.getTotalPages());
+        assertFalse(result.isLast());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testGetAllUsers_lastOffsetPageTotalNeedsNoCount() {
+        when(employeeRepository.findUserSlice(any(Specification.class), any(Sort.class), eq(4L), eq(3)))
+                .thenReturn(List.of(user("E5")));
+
+        PagedResponse<UserResponseDto> result = employeeService.getAllUsers(4, 2, null, null, List.of(), List.of());
+
+        assertTrue(result.isLast());
+        assertEquals(5L, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+        verify(employeeRepository, never()).count(any(Specification.class));
+    }
+
+    private UserResponseDto user(String employeeCode) {
+        return new UserResponseDto(employeeCode, userDto.getFirstName(), userDto.getLastName(), userDto.getEmail(),
+                userDto.getManagerCode(), userDto.getEmployeeType());
+    }
 }
@@ -1,7 +1,9 @@
 package com.example.identitymanagementservice.service;
 
+import com.example.identitymanagementservice.common.keycloak.KeycloakUserIdResolver;
+import com.example.identitymanagementservice.common.keycloak.RoleMembershipIndex;
+import com.example.identitymanagementservice.common.keycloak.RoleMembershipIndex.RoleMember;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
-import com.example.identitymanagementservice.model.Employee;
 import com.example.identitymanagementservice.repository.EmployeeRepository;
 import com.example.identitymanagementservice.service.service.impl.KeycloakAssignRoleServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,24 +18,31 @@ import org.keycloak.admin.client.resource.RolesResource;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.RoleRepresentation;
-import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +53,8 @@ class KeycloakAssignRoleServiceImplTest {
 
     @Mock private Keycloak keycloakAdmin;
     @Mock private EmployeeRepository employeeRepository;
+    @Mock private RoleMembershipIndex roleMembershipIndex;
+    @Mock private KeycloakUserIdResolver keycloakUserIdResolver;
     @Mock private RealmResource realmResource;
     @Mock private UsersResource usersResource;
     @Mock private RolesResource rolesResource;
@@ -51,13 +62,15 @@ class KeycloakAssignRoleServiceImplTest {
     @Mock private UserResource userResource;
     @Mock private RoleMappingResource roleMappingResource;
     @Mock private RoleScopeResource realmLevelResource;
+    @Captor private ArgumentCaptor<Collection<String>> idsCaptor;
 
     @InjectMocks
     private KeycloakAssignRoleServiceImpl keycloakAssignRoleService;
 
     @BeforeEach
     void setUp() {
-        keycloakAssignRoleService = new KeycloakAssignRoleServiceImpl(keycloakAdmin, employeeRepository);
+        keycloakAssignRoleService = new KeycloakAssignRoleServiceImpl(keycloakAdmin, employeeRepository, roleMembershipIndex,
+                keycloakUserIdResolver);
         ReflectionTestUtils.setField(keycloakAssignRoleService, "realm", "test-realm");
 
         // Make these stubbings lenient so they don't cause unnecessary stubbing errors
@@ -70,11 +83,7 @@ class KeycloakAssignRoleServiceImplTest {
     void assignRealmRoles_shouldAssignRolesSuccessfully() {
         String roleName = "employee";
 
-        UserRepresentation user = new UserRepresentation();
-        user.setId(USER_ID);
-        user.setUsername(EMPLOYEE_CODE);
-
-        when(usersResource.search(EMPLOYEE_CODE)).thenReturn(List.of(user));
+        when(keycloakUserIdResolver.resolve(EMPLOYEE_CODE)).thenReturn(USER_ID);
         when(usersResource.get(USER_ID)).thenReturn(userResource);
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.realmLevel()).thenReturn(realmLevelResource);
@@ -88,20 +97,17 @@ class KeycloakAssignRoleServiceImplTest {
         doNothing().when(realmLevelResource).add(anyList());
 
         assertDoesNotThrow(() -> keycloakAssignRoleService.assignRealmRoles(EMPLOYEE_CODE, List.of(roleName)));
+        verify(roleMembershipIndex).onRolesAssigned(USER_ID, EMPLOYEE_CODE, List.of(roleName));
     }
 
     @Test
     void getAssignedRealmRoles_shouldReturnFilteredRoles() {
-        UserRepresentation user = new UserRepresentation();
-        user.setId(USER_ID);
-        user.setUsername(EMPLOYEE_CODE);
-
         RoleRepresentation validRole = new RoleRepresentation();
         validRole.setName("manager");
         RoleRepresentation ignoredRole = new RoleRepresentation();
         ignoredRole.setName("offline_access");
 
-        when(usersResource.search(EMPLOYEE_CODE, true)).thenReturn(List.of(user));
+        when(keycloakUserIdResolver.resolve(EMPLOYEE_CODE)).thenReturn(USER_ID);
         when(usersResource.get(USER_ID)).thenReturn(userResource);
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.realmLevel()).thenReturn(realmLevelResource);
@@ -116,13 +122,10 @@ class KeycloakAssignRoleServiceImplTest {
     void unassignRealmRoles_shouldRemoveAssignedRoles() {
         String roleName = "employee";
 
-        UserRepresentation user = new UserRepresentation();
-        user.setId(USER_ID);
-
         RoleRepresentation roleRep = new RoleRepresentation();
         roleRep.setName(roleName);
 
-        when(usersResource.search(EMPLOYEE_CODE)).thenReturn(List.of(user));
+        when(keycloakUserIdResolver.resolve(EMPLOYEE_CODE)).thenReturn(USER_ID);
         when(usersResource.get(USER_ID)).thenReturn(userResource);
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.realmLevel()).thenReturn(realmLevelResource);
@@ -140,15 +143,12 @@ class KeycloakAssignRoleServiceImplTest {
         String roleAssign = "admin";
         String roleRemove = "viewer";
 
-        UserRepresentation user = new UserRepresentation();
-        user.setId(USER_ID);
-
         RoleRepresentation assignRep = new RoleRepresentation();
         assignRep.setName(roleAssign);
         RoleRepresentation removeRep = new RoleRepresentation();
         removeRep.setName(roleRemove);
 
-        when(usersResource.search(EMPLOYEE_CODE)).thenReturn(List.of(user));
+        when(keycloakUserIdResolver.resolve(EMPLOYEE_CODE)).thenReturn(USER_ID);
         when(usersResource.get(USER_ID)).thenReturn(userResource);
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.realmLevel()).thenReturn(realmLevelResource);
@@ -170,13 +170,10 @@ class KeycloakAssignRoleServiceImplTest {
     void hasManagerRole_shouldReturnTrueIfRoleExists() {
         String roleName = "manager";
 
-        UserRepresentation user = new UserRepresentation();
-        user.setId(USER_ID);
-
         RoleRepresentation role = new RoleRepresentation();
         role.setName(roleName);
 
-        when(usersResource.search(EMPLOYEE_CODE)).thenReturn(List.of(user));
+        when(keycloakUserIdResolver.resolve(EMPLOYEE_CODE)).thenReturn(USER_ID);
         when(usersResource.get(USER_ID)).thenReturn(userResource);
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.realmLevel()).thenReturn(realmLevelResource);
@@ -186,36 +183,61 @@ class KeycloakAssignRoleServiceImplTest {
     }
 
     @Test
-    void getUsersByRoles_shouldReturnUsersWithMatchingRoles() {
-        String roleName = "developer";
+    void hasManagerRole_shouldAnswerFromIndexWithoutCallingKeycloak() {
+        when(roleMembershipIndex.rolesOf(EMPLOYEE_CODE)).thenReturn(Optional.of(Set.of("manager")));
 
-        UserRepresentation user = new UserRepresentation();
-        user.setId(USER_ID);
-        user.setUsername(EMPLOYEE_CODE);
-        user.setFirstName("John");
-
-        RoleRepresentation role = new RoleRepresentation();
-        role.setName(roleName);
+        assertTrue(keycloakAssignRoleService.hasManagerRole(EMPLOYEE_CODE, "manager"));
+        verify(keycloakUserIdResolver, never()).resolve(EMPLOYEE_CODE);
+    }
 
-        Employee emp = new Employee();
-        emp.setKeycloakUserId(USER_ID);
+    @Test
+    void getUsersByRoles_shouldReturnUsersWithMatchingRoles() {
+        String roleName = "developer";
 
-        when(realmResource.users()).thenReturn(usersResource);
-        when(usersResource.list()).thenReturn(List.of(user));
-        when(employeeRepository.findAllByIsActiveTrue()).thenReturn(List.of(emp));
-        when(usersResource.get(USER_ID)).thenReturn(userResource);
-        when(userResource.roles()).thenReturn(roleMappingResource);
-        when(roleMappingResource.realmLevel()).thenReturn(realmLevelResource);
-        when(realmLevelResource.listEffective()).thenReturn(List.of(role));
+        when(roleMembershipIndex.membersOf(roleName))
+                .thenReturn(Map.of(USER_ID, new RoleMember(USER_ID, EMPLOYEE_CODE, "John")));
+        when(employeeRepository.findActiveKeycloakUserIdsIn(List.of(USER_ID))).thenReturn(Set.of(USER_ID));
 
         Map<String, String> result = keycloakAssignRoleService.getUsersByRoles(List.of(roleName));
         assertEquals(1, result.size());
         assertEquals("John", result.get(EMPLOYEE_CODE));
+        verify(usersResource, never()).list();
+    }
+
+    @Test
+    void getUsersByRoles_shouldIntersectRoleMembersAndSkipInactiveUsers() {
+        RoleMember both = new RoleMember(USER_ID, EMPLOYEE_CODE, "John");
+        RoleMember developerOnly = new RoleMember("other-id", "emp456", "Jane");
+        RoleMember inactive = new RoleMember("inactive-id", "emp789", "Jim");
+
+        when(roleMembershipIndex.membersOf("developer")).thenReturn(Map.of(
+                USER_ID, both, "other-id", developerOnly, "inactive-id", inactive));
+        when(roleMembershipIndex.membersOf("manager")).thenReturn(Map.of(
+                USER_ID, both, "inactive-id", inactive));
+        when(employeeRepository.findActiveKeycloakUserIdsIn(anyCollection())).thenReturn(Set.of(USER_ID));
+
+        Map<String, String> result = keycloakAssignRoleService.getUsersByRoles(List.of("developer", "manager"));
+        assertEquals(Map.of(EMPLOYEE_CODE, "John"), result);
+        // Only the intersection is looked up, not every active employee
+        verify(employeeRepository).findActiveKeycloakUserIdsIn(idsCaptor.capture());
+        assertEquals(Set.of(USER_ID, "inactive-id"), Set.copyOf(idsCaptor.getValue()));
+    }
+
+    @Test
+    void getUsersByRoles_shouldThrowWhenNoMemberMatches() {
+        when(roleMembershipIndex.membersOf("developer")).thenReturn(Map.of());
+
+        TimesheetException ex = assertThrows(TimesheetException.class, () ->
+                keycloakAssignRoleService.getUsersByRoles(List.of("developer"))
+        );
+        assertEquals(NOT_FOUND_ERROR, ex.getErrorCode());
+        verify(employeeRepository, never()).findActiveKeycloakUserIdsIn(anyCollection());
     }
 
     @Test
     void assignRealmRoles_shouldThrowIfUserNotFound() {
-        when(usersResource.search(EMPLOYEE_CODE)).thenReturn(Collections.emptyList());
+        when(keycloakUserIdResolver.resolve(EMPLOYEE_CODE))
+                .thenThrow(new TimesheetException(NOT_FOUND_ERROR, "User not found " + EMPLOYEE_CODE));
 
         TimesheetException ex = assertThrows(TimesheetException.class, () ->
                 keycloakAssignRoleService.assignRealmRoles(EMPLOYEE_CODE, List.of("admin"))
@@ -1,7 +1,11 @@
 package com.example.identitymanagementservice.service;
 
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
 import com.example.identitymanagementservice.common.constants.ErrorCode;
-import com.example.identitymanagementservice.common.email.service.EmailService;
+import com.example.identitymanagementservice.common.email.service.EmailOutboxService;
+import com.example.identitymanagementservice.common.keycloak.KeycloakAdminHealthMonitor;
+import com.example.identitymanagementservice.common.keycloak.KeycloakUserIdResolver;
+import com.example.identitymanagementservice.common.keycloak.RoleMembershipIndex;
 import com.example.identitymanagementservice.dto.request.EmployeeRequestDto;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
 import com.example.identitymanagementservice.model.Employee;
@@ -16,7 +20,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
-import org.keycloak.admin.client.resource.RealmsResource;
 import org.keycloak.admin.client.resource.RoleMappingResource;
 import org.keycloak.admin.client.resource.RoleResource;
 import org.keycloak.admin.client.resource.RolesResource;
@@ -35,6 +38,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.net.URI;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -47,17 +51,15 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -71,11 +73,23 @@ class KeycloakCreateUserServiceImplTest {
     private Keycloak keycloakAdmin;
 
     @Mock
-    private EmailService emailService;
+    private EmailOutboxService emailOutboxService;
 
     @Mock
     private EmployeeRepository employeeRepository;
 
+    @Mock
+    private KeycloakUserIdResolver keycloakUserIdResolver;
+
+    @Mock
+    private KeycloakAdminHealthMonitor keycloakAdminHealthMonitor;
+
+    @Mock
+    private EmployeeIdentityCache employeeIdentityCache;
+
+    @Mock
+    private RoleMembershipIndex roleMembershipIndex;
+
     @Mock
     private RealmResource realmResource;
 
@@ -106,6 +120,7 @@ class KeycloakCreateUserServiceImplTest {
 
     @Test
     void createUser_Success() {
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
         when(employeeRepository.findByEmailAndIsActiveTrue(anyString())).thenReturn(Optional.empty());
         when(employeeRepository.findByEmployeeCodeAndIsActiveTrue(anyString())).thenReturn(Optional.empty());
 
@@ -113,10 +128,6 @@ class KeycloakCreateUserServiceImplTest {
         savedEmployee.setEmployeeCode(EMPLOYEE_CODE);
         when(employeeRepository.save(any(Employee.class))).thenReturn(savedEmployee);
 
-        RealmsResource realmsResource = mock(RealmsResource.class);
-        when(keycloakAdmin.realms()).thenReturn(realmsResource);
-        when(realmsResource.findAll()).thenReturn(Collections.emptyList());
-
         when(keycloakAdmin.realm(realm)).thenReturn(realmResource);
         when(realmResource.users()).thenReturn(usersResource);
 
@@ -140,16 +151,6 @@ class KeycloakCreateUserServiceImplTest {
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.realmLevel()).thenReturn(roleScopeResource);
 
-        String expectedEmailBody = "This is the email content";
-        when(emailService.loadTemplate(eq("UserCreationTemplate.txt"), anyMap()))
-                .thenReturn(expectedEmailBody);
-
-        doNothing().when(emailService).sendEmail(
-                eq("john.doe@example.com"),
-                eq("Timesheet Application Login Credentials"),
-                eq(expectedEmailBody)
-        );
-
         Map<String, String> result = keycloakCreateUserService.createUser(validEmployeeRequest);
 
         assertNotNull(result);
@@ -157,16 +158,22 @@ class KeycloakCreateUserServiceImplTest {
         assertNotNull(result.get("temporaryPassword"));
 
         verify(employeeRepository, times(2)).save(any(Employee.class));
-        verify(emailService).sendEmail(
+        verify(employeeIdentityCache).evict(EMPLOYEE_CODE, userId);
+        verify(keycloakUserIdResolver).evict(EMPLOYEE_CODE);
+        verify(roleMembershipIndex).onRolesAssigned(userId, EMPLOYEE_CODE, List.of("Employee"));
+        verify(emailOutboxService).enqueueTemplate(
                 eq("john.doe@example.com"),
                 eq("Timesheet Application Login Credentials"),
-                eq(expectedEmailBody)
+                eq("UserCreationTemplate.txt"),
+                argThat(variables -> EMPLOYEE_CODE.equals(variables.get("username"))
+                        && result.get("temporaryPassword").equals(variables.get("password")))
         );
     }
 
 
     @Test
     void createUser_EmailAlreadyExists_ThrowsException() {
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
         Employee existingEmployee = new Employee();
         existingEmployee.setEmail(validEmployeeRequest.getEmail());
 
@@ -182,6 +189,7 @@ class KeycloakCreateUserServiceImplTest {
 
     @Test
     void createUser_EmployeeCodeAlreadyExists_ThrowsException() {
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
         Employee existingEmployee = new Employee();
         existingEmployee.setEmployeeCode(EMPLOYEE_CODE);
 
@@ -198,21 +206,17 @@ class KeycloakCreateUserServiceImplTest {
 
     @Test
     void createUser_whenKeycloakCreationFails_rollsBack() {
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
         when(employeeRepository.findByEmailAndIsActiveTrue(anyString())).thenReturn(Optional.empty());
         when(employeeRepository.findByEmployeeCodeAndIsActiveTrue(anyString())).thenReturn(Optional.empty());
 
-        RealmsResource realmsResource = mock(RealmsResource.class);
-        when(keycloakAdmin.realms()).thenReturn(realmsResource);
-        when(realmsResource.findAll()).thenReturn(Collections.emptyList());
-
         RealmResource realmResource = mock(RealmResource.class);
         UsersResource usersResource = mock(UsersResource.class);
         when(keycloakAdmin.realm(realm)).thenReturn(realmResource);
         when(realmResource.users()).thenReturn(usersResource);
 
-        when(usersResource.search(anyString(), anyInt(), anyInt(), anyBoolean()))
-                .thenReturn(Collections.emptyList());
-        when(usersResource.list()).thenReturn(Collections.emptyList());
+        when(usersResource.searchByUsername(anyString(), anyBoolean())).thenReturn(Collections.emptyList());
+        when(usersResource.searchByEmail(anyString(), anyBoolean())).thenReturn(Collections.emptyList());
 
         Response failureResponse = mock(Response.class);
         when(failureResponse.getStatus()).thenReturn(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
@@ -229,6 +233,38 @@ class KeycloakCreateUserServiceImplTest {
         verify(employeeRepository, never()).save(argThat(emp -> emp.getKeycloakUserId() != null));
     }
 
+    @Test
+    void createUser_whenEmailExistsInKeycloak_throwsConflict() {
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(true);
+        when(employeeRepository.findByEmailAndIsActiveTrue(anyString())).thenReturn(Optional.empty());
+        when(employeeRepository.findByEmployeeCodeAndIsActiveTrue(anyString())).thenReturn(Optional.empty());
+
+        when(keycloakAdmin.realm(realm)).thenReturn(realmResource);
+        when(realmResource.users()).thenReturn(usersResource);
+        when(usersResource.searchByUsername(EMPLOYEE_CODE, true)).thenReturn(Collections.emptyList());
+        when(usersResource.searchByEmail(validEmployeeRequest.getEmail(), true))
+                .thenReturn(Collections.singletonList(new UserRepresentation()));
+
+        TimesheetException exception = assertThrows(TimesheetException.class,
+                () -> keycloakCreateUserService.createUser(validEmployeeRequest));
+
+        assertEquals(ErrorCode.CONFLICT_ERROR, exception.getErrorCode());
+        assertTrue(exception.getMessage().contains(validEmployeeRequest.getEmail()));
+        verify(usersResource, never()).list();
+        verify(usersResource, never()).create(any(UserRepresentation.class));
+    }
+
+    @Test
+    void createUser_whenKeycloakAdminIsDown_failsFastWithoutTouchingDb() {
+        when(keycloakAdminHealthMonitor.isAvailable()).thenReturn(false);
+
+        TimesheetException exception = assertThrows(TimesheetException.class,
+                () -> keycloakCreateUserService.createUser(validEmployeeRequest));
+
+        assertEquals(ErrorCode.SERVICE_UNAVAILABLE_ERROR, exception.getErrorCode());
+        verifyNoInteractions(employeeRepository, keycloakAdmin);
+    }
+
     @Test
     void updateOwnProfile_Success() {
         String keycloakUserId = USER_ID;
@@ -278,8 +314,8 @@ class KeycloakCreateUserServiceImplTest {
         UserRepresentation kcUser = new UserRepresentation();
         kcUser.setId(USER_ID);
         kcUser.setUsername(employeeCode);
-        when(usersResource.search(employeeCode, true)).thenReturn(Collections.singletonList(kcUser));
-        when(usersResource.get(kcUser.getId())).thenReturn(userResource);
+        when(keycloakUserIdResolver.resolve(employeeCode)).thenReturn(USER_ID);
+        when(usersResource.get(USER_ID)).thenReturn(userResource);
         when(userResource.toRepresentation()).thenReturn(kcUser);
 
         Employee existingEmployee = new Employee();
@@ -317,8 +353,11 @@ class KeycloakCreateUserServiceImplTest {
         when(realmResource.users()).thenReturn(usersResource);
 
         UserRepresentation expectedUser = new UserRepresentation();
+        expectedUser.setId(USER_ID);
         expectedUser.setUsername(employeeCode);
-        when(usersResource.search(employeeCode, true)).thenReturn(Collections.singletonList(expectedUser));
+        when(keycloakUserIdResolver.resolve(employeeCode)).thenReturn(USER_ID);
+        when(usersResource.get(USER_ID)).thenReturn(userResource);
+        when(userResource.toRepresentation()).thenReturn(expectedUser);
 
         UserRepresentation result = keycloakCreateUserService.getUserByemployeeCodekc(employeeCode);
 
@@ -1,6 +1,8 @@
 package com.example.identitymanagementservice.service;
 
+import com.example.identitymanagementservice.common.cache.EmployeeIdentityCache;
 import com.example.identitymanagementservice.common.constants.MessageConstants;
+import com.example.identitymanagementservice.dto.request.response.HierarchyMemberDto;
 import com.example.identitymanagementservice.exceptions.TimesheetException;
 import com.example.identitymanagementservice.model.Employee;
 import com.example.identitymanagementservice.repository.EmployeeRepository;
@@ -16,12 +18,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static com.example.identitymanagementservice.common.constants.ErrorCode.CONFLICT_ERROR;
 import static com.example.identitymanagementservice.common.constants.ErrorCode.FORBIDDEN_ERROR;
 import static com.example.identitymanagementservice.common.constants.ErrorCode.NOT_FOUND_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorCode.VALIDATION_ERROR;
+import static com.example.identitymanagementservice.common.constants.ErrorMessage.REPORTING_CYCLE;
 import static com.example.identitymanagementservice.common.constants.ErrorMessage.ROLE_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ReportingManagerServiceImplTest {
@@ -35,6 +43,9 @@ class ReportingManagerServiceImplTest {
     @Mock
     private KeycloakAssignRoleServiceImpl keycloakAssignRoleService;
 
+    @Mock
+    private EmployeeIdentityCache employeeIdentityCache;
+
     @InjectMocks
     private ReportingManagerServiceImpl reportingManagerService;
 
@@ -62,6 +73,30 @@ class ReportingManagerServiceImplTest {
 
         assertEquals("Reporting manager is assigned to employee", result);
         assertEquals(MANAGER_CODE, employee.getManagerCode());
+        verify(employeeIdentityCache).evict(EMPLOYEE_CODE, null);
+        verify(employeeRepository).lockHierarchy();
+    }
+
+    @Test
+    void testAddReportingManager_WouldCreateCycle_ThrowsConflict() {
+        Employee employee = new Employee();
+        employee.setEmployeeCode(EMPLOYEE_CODE);
+        employee.setActive(true);
+
+        when(keycloakAssignRoleService.getUsersByRoles(List.of("ReportingManager")))
+                .thenReturn(Map.of(MANAGER_CODE, "Manager Name"));
+        when(employeeRepository.findByEmployeeCodeAndIsActiveTrue(EMPLOYEE_CODE))
+                .thenReturn(Optional.of(employee));
+        // EMP001 already sits above MGR001
+        when(employeeRepository.isInManagerChain(MANAGER_CODE, EMPLOYEE_CODE)).thenReturn(true);
+
+        TimesheetException exception = assertThrows(TimesheetException.class, () ->
+                reportingManagerService.addReportingManagerToEmployee(EMPLOYEE_CODE, MANAGER_CODE));
+
+        assertEquals(CONFLICT_ERROR, exception.getErrorCode());
+        assertEquals(String.format(REPORTING_CYCLE, MANAGER_CODE, EMPLOYEE_CODE), exception.getMessage());
+        verify(employeeRepository, never()).save(any(Employee.class));
+        verify(employeeIdentityCache, never()).evict(any(), any());
     }
 
     @Test
@@ -76,6 +111,35 @@ class ReportingManagerServiceImplTest {
         assertEquals(ROLE_NOT_FOUND, exception.getMessage());
     }
 
+    @Test
+    void testGetReportingTree_WithoutMaxDepth_WalksWholeSubtree() {
+        List<HierarchyMemberDto> reports = List.of(
+                new HierarchyMemberDto(EMPLOYEE_CODE, "Jane", "Doe", "jane@example.com", MANAGER_CODE, "Employee", 1));
+        when(employeeRepository.findReports(MANAGER_CODE, Integer.MAX_VALUE)).thenReturn(reports);
+
+        assertEquals(reports, reportingManagerService.getReportingTree(MANAGER_CODE, null));
+    }
+
+    @Test
+    void testGetReportingTree_InvalidMaxDepth_ThrowsValidationError() {
+        TimesheetException exception = assertThrows(TimesheetException.class, () ->
+                reportingManagerService.getReportingTree(MANAGER_CODE, 0));
+
+        assertEquals(VALIDATION_ERROR, exception.getErrorCode());
+        verify(employeeRepository, never()).findReports(any(), anyInt());
+    }
+
+    @Test
+    void testGetManagerChain_UnknownEmployee_ThrowsNotFound() {
+        when(employeeIdentityCache.getByEmployeeCode(EMPLOYEE_CODE)).thenReturn(Optional.empty());
+
+        TimesheetException exception = assertThrows(TimesheetException.class, () ->
+                reportingManagerService.getManagerChain(EMPLOYEE_CODE));
+
+        assertEquals(NOT_FOUND_ERROR, exception.getErrorCode());
+        verify(employeeRepository, never()).findManagerChain(any());
+    }
+
     @Test
     void testGetManagerNameByEmployeeCode_Success() {
         Employee employee = new Employee();